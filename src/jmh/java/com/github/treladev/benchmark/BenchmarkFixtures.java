@@ -0,0 +1,13 @@
+package com.github.treladev.benchmark;
+
+/**
+ * Shared constants for the benchmarks.
+ */
+final class BenchmarkFixtures {
+
+    // Same secret as application.properties, so token sizes match production
+    static final String JWT_SECRET = "mySuperSecretKeyThatIsAtLeast32CharactersLong";
+
+    private BenchmarkFixtures() {
+    }
+}
@@ -0,0 +1,104 @@
+package com.github.treladev.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.treladev.exception.GlobalExceptionHandler;
+import com.github.treladev.exception.InvalidRefreshTokenException;
+import com.github.treladev.exception.UsernameAlreadyInUseException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of an expected error, from the throw `depth` frames below the handler to the encoded response body:
+ *
+ * - `stackTrace*`: the previous exceptions, a RuntimeException with a stack trace and a concatenated message,
+ *   rendered as a plain-text body.
+ * - `problemDetailJackson`: a stackless exception rendered as Spring's ProblemDetail through an ObjectMapper.
+ * - `stackless*`: the domain exceptions rendered by GlobalExceptionHandler from the precomputed problem bodies.
+ *
+ * A request through the servlet container, the security filters and Spring MVC is about 100 frames deep.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Benchmark)
+public class ErrorPathBenchmark {
+
+    @Param({"10", "100"})
+    public int depth;
+
+    private final String username = "admin";
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Benchmark
+    public ResponseEntity<byte[]> stackTraceUsernameInUse() {
+        try {
+            return throwAt(depth, () -> new LegacyException("Username '" + username + "' is already in use."));
+        } catch (LegacyException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> stackTraceFixedDetail() {
+        try {
+            return throwAt(depth, () -> new LegacyException("Refresh token has expired."));
+        } catch (LegacyException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> problemDetailJackson() throws Exception {
+        try {
+            return throwAt(depth, () -> new UsernameAlreadyInUseException(username));
+        } catch (UsernameAlreadyInUseException e) {
+            ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(objectMapper.writeValueAsBytes(problem));
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> stacklessUsernameInUse() {
+        try {
+            return throwAt(depth, () -> new UsernameAlreadyInUseException(username));
+        } catch (UsernameAlreadyInUseException e) {
+            return handler.handleDomainException(e);
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> stacklessFixedDetail() {
+        try {
+            return throwAt(depth, () -> new InvalidRefreshTokenException(InvalidRefreshTokenException.EXPIRED));
+        } catch (InvalidRefreshTokenException e) {
+            return handler.handleDomainException(e);
+        }
+    }
+
+    private static ResponseEntity<byte[]> throwAt(int depth, ExceptionFactory factory) {
+        if (depth == 0) {
+            throw factory.create();
+        }
+        return throwAt(depth - 1, factory);
+    }
+
+    @FunctionalInterface
+    private interface ExceptionFactory {
+        RuntimeException create();
+    }
+
+    // Same shape as the exceptions before they became DomainExceptions
+    private static class LegacyException extends RuntimeException {
+        LegacyException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.treladev.benchmark;
+
+import com.github.treladev.security.jwt.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full JWT request authentication: JwtFilter -> AuthenticationManager -> JwtAuthenticationProvider.
+ *
+ * A cache size of 0 measures the cold path (every request verifies the token),
+ * the default size measures the steady state of a client re-sending its token.
+ * The revocation store is filled with other tokens and the token version table with other users,
+ * so every request pays for both checks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Benchmark)
+public class JwtFilterBenchmark {
+
+    @Param({"0", "10000"})
+    public long tokenCacheSize;
+
+    @Param({"0", "10000"})
+    public int revokedTokens;
+
+    private JwtFilter jwtFilter;
+    private String authorizationHeader;
+    private final FilterChain filterChain = (request, response) -> { };
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = new JwtUtil(BenchmarkFixtures.JWT_SECRET);
+        // Records like the Prometheus registry does, including the percentile histograms
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TokenRevocationStore revocationStore = new TokenRevocationStore(10000);
+        Instant expiresAt = Instant.now().plus(JwtUtil.TOKEN_LIFETIME);
+        TokenVersionTable tokenVersionTable = new TokenVersionTable();
+        for (int i = 0; i < revokedTokens; i++) {
+            revocationStore.revokeToken(UUID.randomUUID().toString(), expiresAt);
+            tokenVersionTable.raise(i + 2L, 1);
+        }
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwtUtil,
+                new VerifiedTokenCache(tokenCacheSize), revocationStore, tokenVersionTable, meterRegistry);
+        jwtFilter = new JwtFilter(new ProviderManager(List.of(provider)),
+                new JwtAuthenticationSuccessHandler(), new JwtAuthenticationFailureHandler(), meterRegistry);
+        authorizationHeader = "Bearer " + jwtUtil.generateToken(1L, "admin", "ROLE_ADMIN", 0);
+    }
+
+    @Benchmark
+    public int authenticateRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users");
+        request.setServletPath("/users");
+        request.addHeader("Authorization", authorizationHeader);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            jwtFilter.doFilter(request, response, filterChain);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return response.getStatus();
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.treladev.benchmark;
+
+import com.github.treladev.security.jwt.JwtUtil;
+import com.github.treladev.security.jwt.VerifiedToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of issuing a token at login and of verifying it on a cache miss.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil(BenchmarkFixtures.JWT_SECRET);
+        token = jwtUtil.generateToken(1L, "admin", "ROLE_ADMIN", 0);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(1L, "admin", "ROLE_ADMIN", 0);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyToken() {
+        return jwtUtil.verifyToken(token);
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.treladev.benchmark;
+
+import com.github.treladev.security.RoleAuthorities;
+import com.github.treladev.security.jwt.JWTCustomUsernamePasswordAuthenticationFilter;
+import com.github.treladev.security.jwt.JwtUtil;
+import com.github.treladev.service.RefreshTokenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login request handling without the password check: reading and parsing the JSON body
+ * in JWTCustomUsernamePasswordAuthenticationFilter.attemptAuthentication.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Benchmark)
+public class LoginRequestBenchmark {
+
+    private static final byte[] LOGIN_BODY = """
+            {
+                "username": "admin",
+                "password": "admin"
+            }
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private JWTCustomUsernamePasswordAuthenticationFilter loginFilter;
+
+    @Setup
+    public void setUp() {
+        // Accepts every credential, so only the request parsing is measured
+        AuthenticationManager authenticationManager = authentication -> UsernamePasswordAuthenticationToken.authenticated(
+                authentication.getPrincipal(), null, RoleAuthorities.forClaim("ROLE_ADMIN"));
+        // No refresh token service: attemptAuthentication never issues tokens
+        loginFilter = new JWTCustomUsernamePasswordAuthenticationFilter(authenticationManager,
+                new JwtUtil(BenchmarkFixtures.JWT_SECRET), new StaticListableBeanFactory().getBeanProvider(RefreshTokenService.class),
+                new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public Authentication attemptAuthentication() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(LOGIN_BODY);
+        return loginFilter.attemptAuthentication(request, new MockHttpServletResponse());
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.treladev.benchmark;
+
+import com.github.treladev.security.KnownRole;
+import com.github.treladev.security.MethodSecurityConfig;
+import com.github.treladev.security.RequireRole;
+import com.github.treladev.security.RoleAuthorities;
+import com.github.treladev.security.jwt.JwtSpringSecurityToken;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of method security on a proxied bean, for the rule "USER or any higher role":
+ * the former SpEL `@PreAuthorize` expression, the same rule as `@RequireRole`, and an unguarded method of the
+ * same proxy as the baseline.
+ *
+ * The caller is authenticated with a {@link JwtSpringSecurityToken}, like every request after the JWT filter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Benchmark)
+public class MethodAuthorizationBenchmark {
+
+    @Param({"ROLE_USER", "ROLE_ADMIN"})
+    public String role;
+
+    private AnnotationConfigApplicationContext context;
+    private GuardedService service;
+
+    @Setup
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext(Config.class);
+        service = context.getBean(GuardedService.class);
+        SecurityContextHolder.getContext().setAuthentication(
+                new JwtSpringSecurityToken("tester", "token", RoleAuthorities.forClaim(role)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+        context.close();
+    }
+
+    @Benchmark
+    public int unguarded() {
+        return service.unguarded();
+    }
+
+    @Benchmark
+    public int spelPreAuthorize() {
+        return service.spel();
+    }
+
+    @Benchmark
+    public int requireRole() {
+        return service.typed();
+    }
+
+    @Configuration
+    @Import(MethodSecurityConfig.class)
+    static class Config {
+
+        @Bean
+        GuardedService guardedService() {
+            return new GuardedService();
+        }
+    }
+
+    public static class GuardedService {
+
+        private int calls;
+
+        public int unguarded() {
+            return ++calls;
+        }
+
+        @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
+        public int spel() {
+            return ++calls;
+        }
+
+        @RequireRole(KnownRole.USER)
+        public int typed() {
+            return ++calls;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.github.treladev.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from launching the application until its first `POST /login` is answered with 200 OK, per startup mode:
+ *
+ * - `default`: the packaged application as it runs without any startup option, Flyway validation included.
+ * - `fast-startup`: the fast-startup profile, i.e. no Flyway and no JDBC metadata lookup while starting.
+ * - `aot`: the profile plus the Spring AOT-generated bean definitions.
+ * - `aot-cds`: the profile, AOT and the AppCDS archive of the training run.
+ *
+ * Launches the extracted jar of `mvn -Pfast-startup package` (`target/fast-startup`) against the database of
+ * application.properties, which must be migrated; extra application arguments go in `-p appArgs="--name=value ..."`.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    private static final Path FAST_STARTUP_DIRECTORY = Path.of("target", "fast-startup");
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    private static final String LOGIN_BODY = """
+            {"username": "admin", "password": "admin"}
+            """;
+
+    @Param({"default", "fast-startup", "aot", "aot-cds"})
+    public String mode;
+
+    @Param({""})
+    public String appArgs;
+
+    private Path jar;
+    private HttpClient httpClient;
+    private Process application;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (var jars = Files.list(FAST_STARTUP_DIRECTORY)) {
+            jar = jars.filter(file -> file.toString().endsWith(".jar")).findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No jar in " + FAST_STARTUP_DIRECTORY.toAbsolutePath()
+                            + ", build it with mvn -Pfast-startup package -DskipTests."));
+        }
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(1))
+                .build();
+    }
+
+    @Benchmark
+    public int timeToFirstRequest() throws Exception {
+        int port = freePort();
+        application = new ProcessBuilder(command(port))
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        HttpRequest login = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(LOGIN_BODY))
+                .build();
+
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!application.isAlive()) {
+                throw new IllegalStateException("The application exited with " + application.exitValue()
+                        + " before answering; is the database running and migrated?");
+            }
+            try {
+                int status = httpClient.send(login, HttpResponse.BodyHandlers.discarding()).statusCode();
+                if (status == 200) {
+                    return status;
+                }
+                throw new IllegalStateException("The first login was answered with " + status + ".");
+            } catch (IOException e) {
+                // Not listening yet
+                Thread.sleep(5);
+            }
+        }
+        throw new IllegalStateException("The application did not answer within " + STARTUP_TIMEOUT + ".");
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopApplication() throws InterruptedException {
+        if (application != null) {
+            application.destroy();
+            if (!application.waitFor(30, TimeUnit.SECONDS)) {
+                application.destroyForcibly().waitFor();
+            }
+            application = null;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        httpClient.close();
+    }
+
+    private List<String> command(int port) {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        switch (mode) {
+            case "default" -> {
+            }
+            case "fast-startup" -> command.add("-Dspring.profiles.active=fast-startup");
+            case "aot" -> command.addAll(List.of("-Dspring.profiles.active=fast-startup", "-Dspring.aot.enabled=true"));
+            case "aot-cds" -> command.addAll(List.of("-Dspring.profiles.active=fast-startup", "-Dspring.aot.enabled=true",
+                    "-XX:SharedArchiveFile=" + FAST_STARTUP_DIRECTORY.resolve("application.jsa")));
+            default -> throw new IllegalArgumentException("Unknown mode " + mode);
+        }
+        command.addAll(List.of("-jar", jar.toString(), "--server.port=" + port));
+        if (!appArgs.isBlank()) {
+            command.addAll(Arrays.asList(appArgs.trim().split("\\s+")));
+        }
+        return command;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
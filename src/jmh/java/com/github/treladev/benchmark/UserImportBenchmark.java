@@ -0,0 +1,93 @@
+package com.github.treladev.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.treladev.SpringSecurityJwtCrudApp;
+import com.github.treladev.dto.UserImportReport;
+import com.github.treladev.repository.RefreshTokenRepository;
+import com.github.treladev.repository.UserRepository;
+import com.github.treladev.security.jwt.TokenVersionTable;
+import com.github.treladev.service.RoleRegistry;
+import com.github.treladev.service.UserImportService;
+import com.github.treladev.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to create `rows` users: bulk import (chunked transactions, pooled IDs, JDBC batches) vs. one
+ * registration per user (one transaction and insert each, as with repeated POST /register calls).
+ *
+ * Runs the application against an in-memory H2 database in PostgreSQL mode, so the numbers show the
+ * cost of the persistence path without network round trips; against PostgreSQL the gap grows with the latency.
+ * Passwords are not hashed here: with BCrypt the import is bounded by hashing
+ * (see `PasswordEncoderBenchmark`, one hash per CPU at a time).
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Benchmark)
+public class UserImportBenchmark {
+
+    @Param({"10000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private UserImportService userImportService;
+    private UserService userService;
+    private int run;
+
+    @Setup
+    public void setUp() {
+        // Command line arguments take precedence over application.properties
+        context = new SpringApplicationBuilder(SpringSecurityJwtCrudApp.class).run(
+                "--server.port=0",
+                "--logging.config=classpath:logback-benchmark.xml",
+                "--spring.datasource.url=jdbc:h2:mem:import-benchmark;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver");
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        RoleRegistry roleRegistry = context.getBean(RoleRegistry.class);
+        PasswordEncoder passwordEncoder = NoOpPasswordEncoder.getInstance();
+        userImportService = new UserImportService(userRepository, roleRegistry, passwordEncoder,
+                context.getBean(ObjectMapper.class), 1000, 0, Duration.ofMinutes(1));
+        userService = new UserService(userRepository, roleRegistry, passwordEncoder,
+                context.getBean(TokenVersionTable.class), context.getBean(RefreshTokenRepository.class),
+                context.getBean(UserCache.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        userImportService.destroy();
+        context.close();
+    }
+
+    @Benchmark
+    public UserImportReport bulkImport() throws Exception {
+        StringBuilder csv = new StringBuilder("username,password\n");
+        String prefix = "import" + run++ + "-";
+        for (int i = 0; i < rows; i++) {
+            csv.append(prefix).append(i).append(",secret\n");
+        }
+        return userImportService.importCsv(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Benchmark
+    public int registerOneByOne() {
+        String prefix = "register" + run++ + "-";
+        for (int i = 0; i < rows; i++) {
+            userService.registerUser(prefix + i, "secret");
+        }
+        return rows;
+    }
+}
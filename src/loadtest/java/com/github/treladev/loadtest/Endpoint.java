@@ -0,0 +1,22 @@
+package com.github.treladev.loadtest;
+
+/**
+ * The endpoints driven by the load test, as named in the report.
+ */
+public enum Endpoint {
+
+    LOGIN("POST /login"),
+    LIST_USERS("GET /users"),
+    UPDATE_USER("PUT /users/{id}"),
+    DELETE_USER("DELETE /users/{id}");
+
+    private final String label;
+
+    Endpoint(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.treladev.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency distribution and error count of one endpoint, recorded by all client threads.
+ *
+ * Latencies are recorded in microseconds with 3 significant digits, from the time a request was due
+ * to be sent, so requests delayed by slow predecessors count their wait as well.
+ */
+public class EndpointStats {
+
+    private final Histogram latencies = new ConcurrentHistogram(3);
+    private final LongAdder errors = new LongAdder();
+
+    public void record(long latencyNanos, boolean success) {
+        latencies.recordValue(Math.max(latencyNanos / 1000, 0));
+        if (!success) {
+            errors.increment();
+        }
+    }
+
+    public long requests() {
+        return latencies.getTotalCount();
+    }
+
+    public LoadReport.EndpointReport report(Duration measured) {
+        long requests = latencies.getTotalCount();
+        long failed = errors.sum();
+        return new LoadReport.EndpointReport(
+                requests,
+                failed,
+                requests == 0 ? 0 : (double) failed / requests,
+                requests / (measured.toNanos() / 1e9),
+                new LoadReport.Latencies(
+                        millis(latencies.getValueAtPercentile(50)),
+                        millis(latencies.getValueAtPercentile(90)),
+                        millis(latencies.getValueAtPercentile(99)),
+                        millis(latencies.getValueAtPercentile(99.9)),
+                        millis(latencies.getMaxValue()),
+                        latencies.getMean() / 1000));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.treladev.loadtest;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON report of a load test run, written to `target/loadtest-report.json` by default.
+ *
+ * @param startedAt The start of the run, as ISO-8601 instant.
+ * @param database  The JDBC URL of the database the application used.
+ * @param workloads One result per workload, in the order they ran.
+ */
+public record LoadReport(String startedAt, String database, int cpus, List<WorkloadReport> workloads) {
+
+    /**
+     * @param rate      The requested rate in requests per second, 0 if unthrottled.
+     * @param endpoints The result of each endpoint the workload sent requests to, by "METHOD /path".
+     */
+    public record WorkloadReport(String workload, int concurrency, int rate, double warmupSeconds,
+                                 double durationSeconds, Map<String, EndpointReport> endpoints) {
+    }
+
+    /**
+     * @param errors             Requests that failed or did not answer with 200 OK.
+     * @param throughputPerSecond Completed requests per second of the measured duration.
+     */
+    public record EndpointReport(long requests, long errors, double errorRate, double throughputPerSecond,
+                                 Latencies latencyMillis) {
+    }
+
+    public record Latencies(double p50, double p90, double p99, double p999, double max, double mean) {
+    }
+}
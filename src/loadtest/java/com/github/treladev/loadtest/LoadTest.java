@@ -0,0 +1,232 @@
+package com.github.treladev.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.treladev.SpringSecurityJwtCrudApp;
+import com.github.treladev.dto.UserSummaryDto;
+import com.github.treladev.security.jwt.JwtUtil;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Starts the application on a random port and drives each workload against it over HTTP:
+ *
+ * - Creates `--users` users through the bulk import and deletes them again at the end.
+ *   One third log in and list users, one third is updated and one third is deleted.
+ * - `--concurrency` client threads send the requests; with `--rate`, request i is due at start + i / rate
+ *   and its latency is measured from then on, so a stalled server cannot hide the requests it held up.
+ * - Every workload runs for `--warmup` unmeasured, then for `--duration` measured.
+ *
+ * Run with `mvn -Ploadtest verify -DskipTests -Dloadtest.args="..."`; see {@link LoadTestOptions} for the options.
+ */
+public class LoadTest {
+
+    private static final String PREFIX = "loadtest-";
+    private static final int READER_TOKENS = 16;
+    private static final String H2_URL = "jdbc:h2:mem:loadtest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH";
+
+    private final LoadTestOptions options;
+    private final LoadTestClient client;
+    private final List<UserSummaryDto> readers;
+    private final List<UserSummaryDto> updated;
+    private final Queue<UserSummaryDto> deleted;
+    private List<String> readerTokens;
+
+    private LoadTest(LoadTestOptions options, LoadTestClient client, List<UserSummaryDto> users) {
+        this.options = options;
+        this.client = client;
+        int third = users.size() / 3;
+        this.readers = users.subList(0, Math.max(third, 1));
+        this.updated = users.subList(readers.size(), readers.size() + Math.max(third, 1));
+        this.deleted = new ConcurrentLinkedQueue<>(users.subList(readers.size() + updated.size(), users.size()));
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        if (options.warmup().plus(options.duration()).compareTo(JwtUtil.TOKEN_LIFETIME) >= 0) {
+            throw new IllegalArgumentException("--warmup plus --duration must be shorter than the token lifetime of "
+                    + JwtUtil.TOKEN_LIFETIME.toMinutes() + " minutes.");
+        }
+        String startedAt = Instant.now().toString();
+
+        try (ConfigurableApplicationContext application = startApplication(options);
+             LoadTestClient client = new LoadTestClient(Integer.parseInt(
+                     application.getEnvironment().getRequiredProperty("local.server.port")))) {
+            List<LoadReport.WorkloadReport> results = new ArrayList<>();
+            try {
+                LoadTest loadTest = new LoadTest(options, client, client.createUsers(PREFIX, options.users()));
+                for (Workload workload : options.workloads()) {
+                    results.add(loadTest.run(workload));
+                }
+            } finally {
+                client.deleteUsers(PREFIX);
+            }
+
+            LoadReport report = new LoadReport(startedAt, application.getEnvironment().getProperty("spring.datasource.url"),
+                    Runtime.getRuntime().availableProcessors(), results);
+            writeReport(report, options);
+        }
+    }
+
+    private LoadReport.WorkloadReport run(Workload workload) throws Exception {
+        readerTokens = new ArrayList<>();
+        for (UserSummaryDto reader : readers.subList(0, Math.min(READER_TOKENS, readers.size()))) {
+            readerTokens.add(client.login(reader.username(), reader.username()));
+        }
+        System.out.printf("Running %s: %s warmup, %s measured%n", workload.label(), options.warmup(), options.duration());
+
+        drive(workload, options.warmup(), new EnumMap<>(Endpoint.class));
+        Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+        Duration measured = drive(workload, options.duration(), stats);
+
+        Map<String, LoadReport.EndpointReport> endpoints = new LinkedHashMap<>();
+        stats.forEach((endpoint, endpointStats) -> endpoints.put(endpoint.label(), endpointStats.report(measured)));
+        return new LoadReport.WorkloadReport(workload.label(), options.concurrency(), options.rate(),
+                seconds(options.warmup()), seconds(measured), endpoints);
+    }
+
+    /**
+     * Sends requests of the workload from all client threads until the duration has passed.
+     *
+     * @return The time from the start until the last request completed.
+     */
+    private Duration drive(Workload workload, Duration duration, Map<Endpoint, EndpointStats> stats) throws Exception {
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long intervalNanos = options.rate() == 0 ? 0 : 1_000_000_000L / options.rate();
+        AtomicLong nextRequest = new AtomicLong();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> threads = new ArrayList<>();
+            for (int i = 0; i < options.concurrency(); i++) {
+                threads.add(clients.submit(() -> {
+                    while (true) {
+                        long due = intervalNanos == 0 ? System.nanoTime() : start + nextRequest.getAndIncrement() * intervalNanos;
+                        if (due >= end) {
+                            return null;
+                        }
+                        LockSupport.parkNanos(due - System.nanoTime());
+                        Outcome outcome = send(workload.pick(ThreadLocalRandom.current().nextInt(100)));
+                        stats.get(outcome.endpoint()).record(System.nanoTime() - due, outcome.success());
+                    }
+                }));
+            }
+            for (Future<?> thread : threads) {
+                thread.get();
+            }
+        }
+        stats.values().removeIf(endpointStats -> endpointStats.requests() == 0);
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    /**
+     * Sends one request to the endpoint, or an update when no user is left to delete.
+     *
+     * @return The endpoint the request went to and whether it was answered with 200 OK.
+     */
+    private Outcome send(Endpoint endpoint) throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int status;
+        try {
+            switch (endpoint) {
+                case LOGIN -> {
+                    UserSummaryDto reader = readers.get(random.nextInt(readers.size()));
+                    status = client.loginStatus(reader.username(), reader.username());
+                }
+                case LIST_USERS -> status = client.listUsers(readerTokens.get(random.nextInt(readerTokens.size())));
+                case DELETE_USER -> {
+                    UserSummaryDto user = deleted.poll();
+                    if (user == null) {
+                        return send(Endpoint.UPDATE_USER);
+                    }
+                    status = client.deleteUser(user.id());
+                }
+                case UPDATE_USER -> {
+                    UserSummaryDto user = updated.get(random.nextInt(updated.size()));
+                    status = client.updateUser(user.id(), user.username(), user.username());
+                }
+                default -> throw new IllegalStateException("Unknown endpoint " + endpoint);
+            }
+        } catch (IOException e) {
+            return new Outcome(endpoint, false);
+        }
+        return new Outcome(endpoint, status == 200);
+    }
+
+    private static ConfigurableApplicationContext startApplication(LoadTestOptions options) {
+        // Devtools is on the test classpath: its restart would run main again, and its defaults are not production's
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        List<String> args = new ArrayList<>(options.appArgs());
+        setIfAbsent(args, "server.port", "0");
+        // Request logging would dominate the measured time
+        setIfAbsent(args, "logging.level.root", "WARN");
+        setIfAbsent(args, "logging.level.org.springframework.security", "WARN");
+        if (options.h2()) {
+            setIfAbsent(args, "spring.datasource.url", H2_URL);
+            setIfAbsent(args, "spring.datasource.username", "sa");
+            setIfAbsent(args, "spring.datasource.password", "");
+            setIfAbsent(args, "spring.datasource.driver-class-name", "org.h2.Driver");
+        }
+        return new SpringApplicationBuilder(SpringSecurityJwtCrudApp.class)
+                .initializers(context -> context.getBeanFactory()
+                        .registerSingleton("testClassesExcludeFilter", new TestClassesExcludeFilter()))
+                .run(args.toArray(String[]::new));
+    }
+
+    private static void setIfAbsent(List<String> args, String property, String value) {
+        if (args.stream().noneMatch(arg -> arg.startsWith("--" + property + "="))) {
+            args.add("--" + property + "=" + value);
+        }
+    }
+
+    private static void writeReport(LoadReport report, LoadTestOptions options) throws IOException {
+        String json = new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(report);
+        if (options.report().getParent() != null) {
+            Files.createDirectories(options.report().getParent());
+        }
+        Files.writeString(options.report(), json);
+        System.out.println(json);
+        System.out.println("Report written to " + options.report().toAbsolutePath());
+    }
+
+    private static double seconds(Duration duration) {
+        return duration.toMillis() / 1000.0;
+    }
+
+    /**
+     * Keeps the test configurations on the classpath (e.g. {@code TestSecurityConfig}) out of the component scan.
+     */
+    static class TestClassesExcludeFilter extends TypeExcludeFilter {
+
+        @Override
+        public boolean match(MetadataReader metadataReader, MetadataReaderFactory metadataReaderFactory) {
+            return metadataReader.getResource().getDescription().contains("test-classes");
+        }
+    }
+
+    private record Outcome(Endpoint endpoint, boolean success) {
+    }
+}
@@ -0,0 +1,172 @@
+package com.github.treladev.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.treladev.dto.LoginRequestDto;
+import com.github.treladev.dto.UpdateUserDto;
+import com.github.treladev.dto.UserFilterDto;
+import com.github.treladev.dto.UserImportRowDto;
+import com.github.treladev.dto.UserSummaryDto;
+import com.github.treladev.security.jwt.JwtUtil;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * HTTP client of the application under load; every request returns the status code of its response.
+ *
+ * The administrator token used for setup, updates and deletes is renewed before the access token expires.
+ */
+public class LoadTestClient implements AutoCloseable {
+
+    private static final String ADMIN = "admin";
+    private static final Duration ADMIN_TOKEN_RENEWAL = JwtUtil.TOKEN_LIFETIME.dividedBy(2);
+    private static final int PAGE_SIZE = 200;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+
+    private volatile String adminToken;
+    private volatile long adminTokenIssuedAt;
+
+    public LoadTestClient(int port) {
+        this.baseUrl = "http://localhost:" + port;
+    }
+
+    /**
+     * Logs in and returns the `Authorization` header value, or null if the login failed.
+     */
+    public String login(String username, String password) throws IOException, InterruptedException {
+        HttpResponse<Void> response = send(post("/login", loginRequest(username, password)));
+        return response.statusCode() == 200 ? response.headers().firstValue("Authorization").orElse(null) : null;
+    }
+
+    public int loginStatus(String username, String password) throws IOException, InterruptedException {
+        return send(post("/login", loginRequest(username, password))).statusCode();
+    }
+
+    public int listUsers(String authorization) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(uri("/users")).header("Authorization", authorization).GET().build()).statusCode();
+    }
+
+    public int updateUser(long id, String username, String password) throws IOException, InterruptedException {
+        UpdateUserDto update = new UpdateUserDto("ROLE_USER", password, username);
+        return send(withAdmin(HttpRequest.newBuilder(uri("/users/" + id)))
+                .header("Content-Type", "application/json")
+                .PUT(json(update))
+                .build()).statusCode();
+    }
+
+    public int deleteUser(long id) throws IOException, InterruptedException {
+        return send(withAdmin(HttpRequest.newBuilder(uri("/users/" + id))).DELETE().build()).statusCode();
+    }
+
+    /**
+     * Creates users through the bulk import, each with its username as password, and returns them.
+     */
+    public List<UserSummaryDto> createUsers(String prefix, int count) throws IOException, InterruptedException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            body.append(objectMapper.writeValueAsString(new UserImportRowDto(prefix + i, prefix + i, null))).append('\n');
+        }
+        HttpResponse<String> imported = httpClient.send(withAdmin(HttpRequest.newBuilder(uri("/admin/users/import")))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        requireOk(imported, "Importing the load test users");
+        return findUsers(prefix);
+    }
+
+    public void deleteUsers(String prefix) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(withAdmin(HttpRequest.newBuilder(uri("/admin/users/delete")))
+                .header("Content-Type", "application/json")
+                .POST(json(new UserFilterDto(null, null, null, prefix)))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        requireOk(response, "Deleting the load test users");
+    }
+
+    private List<UserSummaryDto> findUsers(String prefix) throws IOException, InterruptedException {
+        List<UserSummaryDto> users = new ArrayList<>();
+        long after = 0;
+        List<UserSummaryDto> page;
+        do {
+            HttpResponse<String> response = httpClient.send(withAdmin(HttpRequest.newBuilder(
+                    uri("/users?size=" + PAGE_SIZE + "&after=" + after))).GET().build(), HttpResponse.BodyHandlers.ofString());
+            requireOk(response, "Listing users");
+            page = objectMapper.readValue(response.body(), new TypeReference<>() {
+            });
+            page.stream().filter(user -> user.username().startsWith(prefix)).forEach(users::add);
+            after = page.isEmpty() ? after : page.getLast().id();
+        } while (page.size() == PAGE_SIZE);
+        return users;
+    }
+
+    private HttpRequest.Builder withAdmin(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return request.header("Authorization", adminToken());
+    }
+
+    private String adminToken() throws IOException, InterruptedException {
+        if (adminToken == null || System.nanoTime() - adminTokenIssuedAt > ADMIN_TOKEN_RENEWAL.toNanos()) {
+            synchronized (this) {
+                if (adminToken == null || System.nanoTime() - adminTokenIssuedAt > ADMIN_TOKEN_RENEWAL.toNanos()) {
+                    String token = login(ADMIN, ADMIN);
+                    if (token == null) {
+                        throw new IllegalStateException("The administrator login failed.");
+                    }
+                    adminTokenIssuedAt = System.nanoTime();
+                    adminToken = token;
+                }
+            }
+        }
+        return adminToken;
+    }
+
+    private static LoginRequestDto loginRequest(String username, String password) {
+        LoginRequestDto loginRequest = new LoginRequestDto();
+        loginRequest.setUsername(username);
+        loginRequest.setPassword(password);
+        return loginRequest;
+    }
+
+    private HttpRequest post(String path, Object body) {
+        return HttpRequest.newBuilder(uri(path)).header("Content-Type", "application/json").POST(json(body)).build();
+    }
+
+    private HttpRequest.BodyPublisher json(Object body) {
+        try {
+            return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private HttpResponse<Void> send(HttpRequest request) throws IOException, InterruptedException {
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private static void requireOk(HttpResponse<String> response, String action) {
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(action + " failed with " + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    @Override
+    public void close() {
+        httpClient.close();
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.treladev.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Options of a load test run, parsed from `--name=value` arguments.
+ *
+ * @param workloads   The workloads to run one after another.
+ * @param concurrency The number of client threads, i.e. the most requests in flight.
+ * @param rate        Requests per second over all threads; 0 sends the next request as soon as a thread is free.
+ * @param warmup      How long each workload runs before it is measured.
+ * @param duration    How long each workload is measured.
+ * @param users       The number of users created for the run: one third logs in, one third is updated and one
+ *                    third is deleted. Once no user is left to delete, deletes are replaced by updates.
+ * @param h2          Runs the application against an in-memory H2 database instead of `spring.datasource.url`.
+ * @param report      Where the JSON report is written.
+ * @param appArgs     All other arguments, passed on to the application (e.g. `--spring.datasource.url=...`).
+ */
+public record LoadTestOptions(List<Workload> workloads, int concurrency, int rate, Duration warmup, Duration duration,
+                              int users, boolean h2, Path report, List<String> appArgs) {
+
+    public static LoadTestOptions parse(String[] args) {
+        List<Workload> workloads = List.of(Workload.values());
+        int concurrency = 16;
+        int rate = 0;
+        Duration warmup = Duration.ofSeconds(10);
+        Duration duration = Duration.ofSeconds(30);
+        int users = 600;
+        boolean h2 = false;
+        Path report = Path.of("target", "loadtest-report.json");
+        List<String> appArgs = new ArrayList<>();
+
+        for (String arg : args) {
+            String name = arg.contains("=") ? arg.substring(0, arg.indexOf('=')) : arg;
+            String value = arg.contains("=") ? arg.substring(arg.indexOf('=') + 1) : "true";
+            switch (name) {
+                case "--workload" -> workloads = Workload.parseList(value);
+                case "--concurrency" -> concurrency = Integer.parseInt(value);
+                case "--rate" -> rate = Integer.parseInt(value);
+                case "--warmup" -> warmup = Duration.parse(value);
+                case "--duration" -> duration = Duration.parse(value);
+                case "--users" -> users = Integer.parseInt(value);
+                case "--h2" -> h2 = Boolean.parseBoolean(value);
+                case "--report" -> report = Path.of(value);
+                default -> appArgs.add(arg);
+            }
+        }
+        if (concurrency < 1 || rate < 0 || users < 2) {
+            throw new IllegalArgumentException("Expected --concurrency >= 1, --rate >= 0 and --users >= 2.");
+        }
+        return new LoadTestOptions(workloads, concurrency, rate, warmup, duration, users, h2, report, List.copyOf(appArgs));
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.treladev.loadtest;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Request mixes of the load test; each request picks its endpoint at random with these weights (in percent).
+ *
+ * - `login`: mostly username/password logins (BCrypt bound), some listings with the issued tokens.
+ * - `read`: mostly first pages of `/users`, a few logins.
+ * - `write`: updates (BCrypt bound as well) and deletes of the created users, a few listings.
+ */
+public enum Workload {
+
+    LOGIN(80, 20, 0, 0),
+    READ(5, 95, 0, 0),
+    WRITE(0, 10, 60, 30);
+
+    private final int[] weights;
+
+    Workload(int login, int listUsers, int updateUser, int deleteUser) {
+        this.weights = new int[]{login, listUsers, updateUser, deleteUser};
+    }
+
+    /**
+     * @param percentile A number from 0 (inclusive) to 100 (exclusive).
+     */
+    public Endpoint pick(int percentile) {
+        int upper = 0;
+        for (Endpoint endpoint : Endpoint.values()) {
+            upper += weights[endpoint.ordinal()];
+            if (percentile < upper) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Not a percentile: " + percentile);
+    }
+
+    public String label() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    static List<Workload> parseList(String value) {
+        return Arrays.stream(value.split(","))
+                .map(name -> Workload.valueOf(name.strip().toUpperCase(Locale.ROOT)))
+                .toList();
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.treladev;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables Micrometer's `@Timed` on Spring beans, e.g. the `user.service` timers of
+ * {@link com.github.treladev.service.UserService}.
+ *
+ * - Each call is recorded with the class and method name as tags, and the exception it threw, if any.
+ * - Percentile histograms are switched on per metric prefix in `application.properties`.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
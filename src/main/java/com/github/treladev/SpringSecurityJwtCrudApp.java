@@ -2,8 +2,10 @@ package com.github.treladev;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling // Purges expired token revocations and refresh tokens, reads revocations of other instances
 public class SpringSecurityJwtCrudApp {
 
 	public static void main(String[] args) {
@@ -0,0 +1,91 @@
+package com.github.treladev.controller;
+
+import com.github.treladev.dto.BulkEnableRequestDto;
+import com.github.treladev.dto.BulkUpdateResultDto;
+import com.github.treladev.dto.RoleReassignmentDto;
+import com.github.treladev.dto.UserFilterDto;
+import com.github.treladev.dto.UserImportReport;
+import com.github.treladev.exception.InvalidUserFilterException;
+import com.github.treladev.exception.NoSuchRoleException;
+import com.github.treladev.model.Role;
+import com.github.treladev.repository.UserFilter;
+import com.github.treladev.security.KnownRole;
+import com.github.treladev.security.RequireRole;
+import com.github.treladev.service.RoleRegistry;
+import com.github.treladev.service.UserImportService;
+import com.github.treladev.service.UserService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/admin/users")
+public class AdminUserController {
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final UserImportService userImportService;
+    private final UserService userService;
+    private final RoleRegistry roleRegistry;
+
+    public AdminUserController(UserImportService userImportService, UserService userService, RoleRegistry roleRegistry) {
+        this.userImportService = userImportService;
+        this.userService = userService;
+        this.roleRegistry = roleRegistry;
+    }
+
+    // Endpoint for creating many users from newline-delimited JSON, read from the request while it arrives
+    @RequireRole(KnownRole.ADMIN)
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<UserImportReport> importNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(userImportService.importNdjson(body));
+    }
+
+    // Endpoint for creating many users from CSV (username,password[,role]), read from the request while it arrives
+    @RequireRole(KnownRole.ADMIN)
+    @PostMapping(value = "/import", consumes = TEXT_CSV_VALUE)
+    public ResponseEntity<UserImportReport> importCsv(InputStream body) throws IOException {
+        return ResponseEntity.ok(userImportService.importCsv(body));
+    }
+
+    // Endpoint for deleting every user matching a filter with one statement
+    @RequireRole(KnownRole.ADMIN)
+    @PostMapping("/delete")
+    public ResponseEntity<BulkUpdateResultDto> deleteUsers(@RequestBody UserFilterDto filter) {
+        return ResponseEntity.ok(new BulkUpdateResultDto(userService.deleteUsers(toUserFilter(filter))));
+    }
+
+    // Endpoint for enabling or disabling every user matching a filter; moderators leave admins untouched
+    @RequireRole(KnownRole.MODERATOR)
+    @PostMapping("/enabled")
+    public ResponseEntity<BulkUpdateResultDto> setUsersEnabled(@RequestBody BulkEnableRequestDto request) {
+        int affected = userService.setUsersEnabled(toUserFilter(request.filter()), request.enabled());
+        return ResponseEntity.ok(new BulkUpdateResultDto(affected));
+    }
+
+    // Endpoint for moving every user from one role to another
+    @RequireRole(KnownRole.MODERATOR)
+    @PostMapping("/role")
+    public ResponseEntity<BulkUpdateResultDto> reassignRole(@RequestBody RoleReassignmentDto request) {
+        int affected = userService.reassignRole(findRole(request.fromRole()), findRole(request.toRole()));
+        return ResponseEntity.ok(new BulkUpdateResultDto(affected));
+    }
+
+    private UserFilter toUserFilter(UserFilterDto filter) {
+        if (filter == null) {
+            throw new InvalidUserFilterException(InvalidUserFilterException.REQUIRED);
+        }
+        Role role = filter.role() == null ? null : findRole(filter.role());
+        return new UserFilter(filter.ids(), role, filter.enabled(), filter.usernamePrefix(), null);
+    }
+
+    private Role findRole(String name) {
+        return roleRegistry.findByName(name).orElseThrow(() -> new NoSuchRoleException(name));
+    }
+}
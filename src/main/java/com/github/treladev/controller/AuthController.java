@@ -1,7 +1,10 @@
 package com.github.treladev.controller;
 
+import com.github.treladev.dto.RefreshTokenRequestDto;
 import com.github.treladev.model.User;
 import com.github.treladev.dto.LoginRequestDto;
+import com.github.treladev.service.RefreshTokenService;
+import com.github.treladev.service.RefreshTokenService.TokenPair;
 import com.github.treladev.service.UserService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -13,10 +16,12 @@ import org.springframework.web.bind.annotation.RestController;
 public class AuthController {
 
     private final UserService userService;
+    private final RefreshTokenService refreshTokenService;
 
-    // Injecting UserService via constructor
-    public AuthController(UserService userService) {
+    // Injecting UserService and RefreshTokenService via constructor
+    public AuthController(UserService userService, RefreshTokenService refreshTokenService) {
         this.userService = userService;
+        this.refreshTokenService = refreshTokenService;
     }
 
     /**
@@ -37,4 +42,20 @@ public class AuthController {
     public void login(@RequestBody LoginRequestDto loginRequest) {
         // This method is empty because authentication is handled by a filter.
     }
+
+    /**
+     * Endpoint for renewing an expired access token without sending credentials again.
+     * The presented refresh token is consumed and a new one is returned with the new access token.
+     *
+     * @param refreshRequest The request containing the current refresh token.
+     * @return ResponseEntity with the new tokens in the 'Authorization' and 'Refresh-Token' headers.
+     */
+    @PostMapping("/token/refresh")
+    public ResponseEntity<String> refresh(@RequestBody RefreshTokenRequestDto refreshRequest) {
+        TokenPair tokens = refreshTokenService.rotate(refreshRequest.getRefreshToken());
+        return ResponseEntity.ok()
+                .header("Authorization", "Bearer " + tokens.accessToken())
+                .header(RefreshTokenService.REFRESH_TOKEN_HEADER, tokens.refreshToken())
+                .body("JWT token refreshed successfully! You can find it in the 'Authorization' header.");
+    }
 }
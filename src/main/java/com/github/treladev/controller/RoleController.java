@@ -0,0 +1,26 @@
+package com.github.treladev.controller;
+
+import com.github.treladev.security.KnownRole;
+import com.github.treladev.security.RequireRole;
+import com.github.treladev.service.RoleRegistry;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class RoleController {
+
+    private final RoleRegistry roleRegistry;
+
+    public RoleController(RoleRegistry roleRegistry) {
+        this.roleRegistry = roleRegistry;
+    }
+
+    // Endpoint for re-reading the roles table after roles were added or changed in the database
+    @RequireRole(KnownRole.ADMIN)
+    @PostMapping("/roles/reload")
+    public ResponseEntity<String> reloadRoles() {
+        int roleCount = roleRegistry.reload();
+        return ResponseEntity.ok("Reloaded " + roleCount + " roles.");
+    }
+}
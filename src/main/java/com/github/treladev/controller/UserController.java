@@ -2,14 +2,25 @@ package com.github.treladev.controller;
 
 
 import com.github.treladev.dto.UpdateUserDto;
+import com.github.treladev.dto.UserSummaryDto;
 import com.github.treladev.exception.NoSuchRoleException;
 import com.github.treladev.model.User;
-import com.github.treladev.repository.RoleRepository;
+import com.github.treladev.security.KnownRole;
+import com.github.treladev.security.RequireRole;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.treladev.service.RoleRegistry;
 import com.github.treladev.service.UserService;
+import com.github.treladev.service.UserService.UserPage;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
@@ -17,40 +28,73 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
-    private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
+    private final ObjectMapper objectMapper;
 
-    public UserController(UserService userService,RoleRepository roleRepository) {
+    public UserController(UserService userService,RoleRegistry roleRegistry, ObjectMapper objectMapper) {
         this.userService = userService;
-        this.roleRepository = roleRepository;
-
+        this.roleRegistry = roleRegistry;
+        this.objectMapper = objectMapper;
     }
 
-    // Endpoint for getting all users
-    @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
+    // Endpoint for getting users one page at a time, the next page is linked in the 'Link' header
+    @RequireRole(KnownRole.USER)
     @GetMapping("/users")
-    public ResponseEntity<List<User>> getAllUsers() {
-        List<User> users = userService.getAllUsers();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<List<UserSummaryDto>> getAllUsers(@RequestParam(defaultValue = "0") long after,
+                                                  @RequestParam(defaultValue = "" + UserService.DEFAULT_PAGE_SIZE) int size) {
+        UserPage page = userService.getUsersPage(after, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextAfter() != null) {
+            String nextPage = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", page.nextAfter())
+                    .replaceQueryParam("size", page.users().size())
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + nextPage + ">; rel=\"next\"");
+        }
+        return response.body(page.users());
+    }
+
+    // Endpoint for streaming all users as newline-delimited JSON, written while the rows are read
+    @RequireRole(KnownRole.USER)
+    @GetMapping(value = "/users/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllUsers() {
+        StreamingResponseBody body = outputStream -> {
+            try {
+                userService.streamAllUsers(user -> writeLine(outputStream, user));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    private void writeLine(OutputStream outputStream, UserSummaryDto user) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(user));
+            outputStream.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
 
     // Endpoint for updating a user by ID
-    //@PreAuthorize("hasRole('MODERATOR') or hasRole('ADMIN')")
+    @RequireRole(KnownRole.MODERATOR)
     @PutMapping("/users/{id}")
     public ResponseEntity<String> updateUserProfile(@PathVariable long id, @RequestBody UpdateUserDto updateUserDto) {
             User updatedUser = new User();
             updatedUser.setUsername(updateUserDto.getUsername());
             updatedUser.setPassword(updateUserDto.getPassword());
             updatedUser.setRole(
-                roleRepository.findByName(updateUserDto.getRole())
-                        .orElseThrow(() -> new NoSuchRoleException("No such role: " + updateUserDto.getRole()))
+                roleRegistry.findByName(updateUserDto.getRole())
+                        .orElseThrow(() -> new NoSuchRoleException(updateUserDto.getRole()))
         );
         userService.updateUser(id, updatedUser);
             return ResponseEntity.ok("User with ID " + id + " has been successfully updated!");
     }
 
     // Endpoint for deleting a user by ID
-    @PreAuthorize("hasRole('ADMIN')")
+    @RequireRole(KnownRole.ADMIN)
     @DeleteMapping("/users/{id}")
     public ResponseEntity<String> deleteUserById(@PathVariable long id) {
         userService.deleteUserById(id);
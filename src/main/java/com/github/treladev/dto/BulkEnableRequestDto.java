@@ -0,0 +1,7 @@
+package com.github.treladev.dto;
+
+/**
+ * Enables (true) or disables (false) every user matching the filter.
+ */
+public record BulkEnableRequestDto(UserFilterDto filter, boolean enabled) {
+}
@@ -0,0 +1,9 @@
+package com.github.treladev.dto;
+
+/**
+ * Outcome of a bulk admin operation.
+ *
+ * @param affected The number of users deleted or updated.
+ */
+public record BulkUpdateResultDto(int affected) {
+}
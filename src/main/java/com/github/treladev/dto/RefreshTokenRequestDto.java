@@ -0,0 +1,19 @@
+package com.github.treladev.dto;
+
+/**
+ * DTO (Data Transfer Object) for handling token refresh requests.
+ *
+ * - Carries the refresh token received at login or from the previous refresh.
+ */
+public class RefreshTokenRequestDto {
+
+    private String refreshToken;
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+}
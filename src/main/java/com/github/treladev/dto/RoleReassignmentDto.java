@@ -0,0 +1,7 @@
+package com.github.treladev.dto;
+
+/**
+ * Moves every user with role `fromRole` to role `toRole`, both given by name, e.g. ROLE_GUEST.
+ */
+public record RoleReassignmentDto(String fromRole, String toRole) {
+}
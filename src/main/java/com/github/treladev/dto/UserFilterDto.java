@@ -0,0 +1,12 @@
+package com.github.treladev.dto;
+
+import java.util.List;
+
+/**
+ * Selects the users of a bulk admin operation. Omitted fields are ignored, all given ones must match.
+ *
+ * @param role           The role name, e.g. ROLE_GUEST.
+ * @param usernamePrefix Matches usernames starting with it, ignoring case.
+ */
+public record UserFilterDto(List<Long> ids, String role, Boolean enabled, String usernamePrefix) {
+}
@@ -0,0 +1,23 @@
+package com.github.treladev.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk user import.
+ *
+ * @param imported The number of users created.
+ * @param rejected The number of rows that were skipped.
+ * @param errors   One entry per skipped row, in input order.
+ */
+public record UserImportReport(int imported, int rejected, List<RowError> errors) {
+
+    /**
+     * A row that was not imported.
+     *
+     * @param line     The 1-based line number in the uploaded body.
+     * @param username The username of the row, if it could be read.
+     * @param error    Why the row was skipped.
+     */
+    public record RowError(long line, String username, String error) {
+    }
+}
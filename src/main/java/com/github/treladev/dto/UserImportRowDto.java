@@ -0,0 +1,9 @@
+package com.github.treladev.dto;
+
+/**
+ * One user of a bulk import, as read from an NDJSON line or a CSV row.
+ *
+ * @param role The role name, e.g. ROLE_MODERATOR; ROLE_USER when missing.
+ */
+public record UserImportRowDto(String username, String password, String role) {
+}
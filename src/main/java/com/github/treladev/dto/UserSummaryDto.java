@@ -0,0 +1,11 @@
+package com.github.treladev.dto;
+
+/**
+ * Public read model of a user, as returned by the user listing endpoints.
+ *
+ * - Built directly by a JPQL constructor expression, so no entities are loaded or managed.
+ * - Carries only public fields; the password hash never leaves the database.
+ */
+public record UserSummaryDto(Long id, String username, String role, boolean enabled, boolean accountNonLocked,
+                             boolean accountNonExpired, boolean credentialsNonExpired) {
+}
@@ -1,7 +1,10 @@
 package com.github.treladev.exception;
 
-public class AdminRoleAssignmentException extends RuntimeException {
-    public AdminRoleAssignmentException(String message) {
-        super(message);
+public class AdminRoleAssignmentException extends DomainException {
+
+    public static final String MESSAGE = "Only admins can assign the ADMIN role.";
+
+    public AdminRoleAssignmentException() {
+        super(ProblemType.ADMIN_ROLE_ASSIGNMENT, MESSAGE);
     }
 }
@@ -1,7 +1,10 @@
 package com.github.treladev.exception;
 
-public class AdminUpdateForbiddenException extends RuntimeException {
-    public AdminUpdateForbiddenException(String message) {
-        super(message);
+public class AdminUpdateForbiddenException extends DomainException {
+
+    public static final String MESSAGE = "Only admins can update other admins.";
+
+    public AdminUpdateForbiddenException() {
+        super(ProblemType.ADMIN_UPDATE_FORBIDDEN, MESSAGE);
     }
 }
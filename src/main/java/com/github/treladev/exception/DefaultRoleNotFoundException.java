@@ -1,7 +1,10 @@
 package com.github.treladev.exception;
 
-public class DefaultRoleNotFoundException extends RuntimeException {
-    public DefaultRoleNotFoundException(String message) {
-        super(message);
+public class DefaultRoleNotFoundException extends DomainException {
+
+    public static final String MESSAGE = "Default role not found.";
+
+    public DefaultRoleNotFoundException() {
+        super(ProblemType.DEFAULT_ROLE_NOT_FOUND, MESSAGE);
     }
 }
@@ -0,0 +1,31 @@
+package com.github.treladev.exception;
+
+/**
+ * Base of the exceptions that report an expected outcome to the client, e.g. a taken username or an expired token.
+ *
+ * - They are part of normal control flow, so they record no stack trace and no suppressed exceptions:
+ *   the throw costs little more than the allocation, however deep the call stack is.
+ * - {@link GlobalExceptionHandler} renders them as the RFC 7807 body of their {@link ProblemType}.
+ * - Subclasses with a parameterized message build it in {@link #getMessage()}, only when it is read.
+ */
+public abstract class DomainException extends RuntimeException {
+
+    private final ProblemType problemType;
+
+    protected DomainException(ProblemType problemType, String message) {
+        super(message, null, false, false);
+        this.problemType = problemType;
+    }
+
+    protected DomainException(ProblemType problemType) {
+        this(problemType, null);
+    }
+
+    public ProblemType problemType() {
+        return problemType;
+    }
+
+    public byte[] problemBody() {
+        return problemType.body(getMessage());
+    }
+}
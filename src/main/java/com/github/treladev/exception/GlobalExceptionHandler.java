@@ -1,48 +1,39 @@
 package com.github.treladev.exception;
 
-import org.apache.coyote.Response;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+/**
+ * Renders the domain exceptions as RFC 7807 `application/problem+json` responses.
+ *
+ * - The bodies come precomputed from {@link ProblemType}, so no ObjectMapper or ProblemDetail is involved.
+ * - The status is the one of the problem type.
+ */
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
-
-   @ExceptionHandler(UsernameAlreadyInUseException.class)
-    public ResponseEntity<String> handleUsernameAlreadyInUse(UsernameAlreadyInUseException ex){
-       return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
-   }
-
-   @ExceptionHandler(UsernameNotFoundException.class)
-    public ResponseEntity<String> handleUsernameNotFound(UsernameNotFoundException ex){
-       return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
-   }
-
-   @ExceptionHandler(AdminUpdateForbiddenException.class)
-    public ResponseEntity<String> handleAdminUpdateForbidden(AdminUpdateForbiddenException ex){
-       return ResponseEntity.status(HttpStatus.FORBIDDEN).body(ex.getMessage());
-   }
-
-   @ExceptionHandler(AdminRoleAssignmentException.class)
-    public ResponseEntity<String> handleAdminRoleAssignment(AdminRoleAssignmentException ex){
-       return ResponseEntity.status(HttpStatus.FORBIDDEN).body(ex.getMessage());
-   }
-
-   @ExceptionHandler(NoSuchRoleException.class)
-    public ResponseEntity<String> handleNoSuchRoleException(NoSuchRoleException ex){
-       return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
-   }
-
-    @ExceptionHandler(DefaultRoleNotFoundException.class)
-    public ResponseEntity<String> handleNoSuchRoleException(DefaultRoleNotFoundException ex){
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
+    @ExceptionHandler(DomainException.class)
+    public ResponseEntity<byte[]> handleDomainException(DomainException ex){
+        return problem(ex.problemType()).body(ex.problemBody());
     }
 
+    @ExceptionHandler(UsernameNotFoundException.class)
+    public ResponseEntity<byte[]> handleUsernameNotFound(UsernameNotFoundException ex){
+        return problem(ProblemType.USER_NOT_FOUND).body(ProblemType.USER_NOT_FOUND.body(ex.getMessage()));
+    }
 
+    @ExceptionHandler(PasswordHashingUnavailableException.class)
+    public ResponseEntity<byte[]> handlePasswordHashingUnavailable(PasswordHashingUnavailableException ex){
+        return problem(ex.problemType())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(PasswordHashingUnavailableException.RETRY_AFTER_SECONDS))
+                .body(ex.problemBody());
+    }
 
-
-
+    private static ResponseEntity.BodyBuilder problem(ProblemType problemType) {
+        return ResponseEntity.status(problemType.status()).contentType(MediaType.APPLICATION_PROBLEM_JSON);
+    }
 }
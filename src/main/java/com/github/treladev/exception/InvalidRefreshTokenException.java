@@ -0,0 +1,14 @@
+package com.github.treladev.exception;
+
+public class InvalidRefreshTokenException extends DomainException {
+
+    public static final String REQUIRED = "Refresh token is required.";
+    public static final String UNKNOWN = "Invalid refresh token.";
+    public static final String ALREADY_USED = "Refresh token has already been used.";
+    public static final String EXPIRED = "Refresh token has expired.";
+    public static final String ACCOUNT_DISABLED = "Account is disabled or locked.";
+
+    public InvalidRefreshTokenException(String message) {
+        super(ProblemType.INVALID_REFRESH_TOKEN, message);
+    }
+}
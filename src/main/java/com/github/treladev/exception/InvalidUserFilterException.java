@@ -0,0 +1,12 @@
+package com.github.treladev.exception;
+
+public class InvalidUserFilterException extends DomainException {
+
+    public static final String REQUIRED = "A filter is required.";
+    public static final String EMPTY = "The filter must select users by ids, role, enabled or username prefix.";
+    public static final String NULL_ID = "The filter ids must not contain null.";
+
+    public InvalidUserFilterException(String message) {
+        super(ProblemType.INVALID_USER_FILTER, message);
+    }
+}
@@ -1,7 +1,20 @@
 package com.github.treladev.exception;
 
-public class NoSuchRoleException extends RuntimeException {
-    public NoSuchRoleException(String message) {
-        super(message);
+public class NoSuchRoleException extends DomainException {
+
+    private final String role;
+
+    public NoSuchRoleException(String role) {
+        super(ProblemType.ROLE_NOT_FOUND);
+        this.role = role;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    @Override
+    public String getMessage() {
+        return "No such role: " + role;
     }
 }
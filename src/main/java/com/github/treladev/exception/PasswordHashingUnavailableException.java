@@ -0,0 +1,20 @@
+package com.github.treladev.exception;
+
+/**
+ * Thrown when the password hashing pool is saturated and a hash or verification cannot start in time.
+ */
+public class PasswordHashingUnavailableException extends DomainException {
+
+    // Seconds clients are asked to wait before retrying
+    public static final int RETRY_AFTER_SECONDS = 1;
+
+    public static final String CAPACITY_EXCEEDED = "Password hashing capacity exceeded, please retry later.";
+    public static final String TIMED_OUT = "Password hashing timed out, please retry later.";
+    public static final String INTERRUPTED = "Password hashing was interrupted.";
+    public static final String IMPORT_STOPPED = "Password hashing stayed unavailable, the import was stopped."
+            + " Users imported until then were kept and are reported as in use when the import is retried.";
+
+    public PasswordHashingUnavailableException(String message) {
+        super(ProblemType.PASSWORD_HASHING_UNAVAILABLE, message);
+    }
+}
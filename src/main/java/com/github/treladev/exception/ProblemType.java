@@ -0,0 +1,104 @@
+package com.github.treladev.exception;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.springframework.http.HttpStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The kinds of errors the API reports, each rendered as an RFC 7807 `application/problem+json` body:
+ *
+ * - `type`, `title` and `status` are fixed per kind, so their JSON is encoded once, when the class loads.
+ * - Bodies of the fixed details listed here are encoded completely up front; any other detail is appended
+ *   to the precomputed head, without an ObjectMapper.
+ */
+public enum ProblemType {
+
+    USERNAME_IN_USE(HttpStatus.CONFLICT, "username-in-use", "Username already in use"),
+    USER_NOT_FOUND(HttpStatus.NOT_FOUND, "user-not-found", "User not found"),
+    ROLE_NOT_FOUND(HttpStatus.NOT_FOUND, "role-not-found", "Role not found"),
+    DEFAULT_ROLE_NOT_FOUND(HttpStatus.NOT_FOUND, "default-role-not-found", "Default role not found",
+            DefaultRoleNotFoundException.MESSAGE),
+    ADMIN_UPDATE_FORBIDDEN(HttpStatus.FORBIDDEN, "admin-update-forbidden", "Admin update forbidden",
+            AdminUpdateForbiddenException.MESSAGE),
+    ADMIN_ROLE_ASSIGNMENT(HttpStatus.FORBIDDEN, "admin-role-assignment", "Admin role assignment forbidden",
+            AdminRoleAssignmentException.MESSAGE),
+    INVALID_REFRESH_TOKEN(HttpStatus.UNAUTHORIZED, "invalid-refresh-token", "Invalid refresh token",
+            InvalidRefreshTokenException.REQUIRED, InvalidRefreshTokenException.UNKNOWN,
+            InvalidRefreshTokenException.ALREADY_USED, InvalidRefreshTokenException.EXPIRED,
+            InvalidRefreshTokenException.ACCOUNT_DISABLED),
+    INVALID_CREDENTIALS(HttpStatus.UNAUTHORIZED, "invalid-credentials", "Invalid credentials",
+            ProblemType.INVALID_CREDENTIALS_DETAIL),
+    INVALID_USER_FILTER(HttpStatus.BAD_REQUEST, "invalid-user-filter", "Invalid user filter",
+            InvalidUserFilterException.REQUIRED, InvalidUserFilterException.EMPTY, InvalidUserFilterException.NULL_ID),
+    PASSWORD_HASHING_UNAVAILABLE(HttpStatus.SERVICE_UNAVAILABLE, "password-hashing-unavailable",
+            "Password hashing unavailable",
+            PasswordHashingUnavailableException.CAPACITY_EXCEEDED, PasswordHashingUnavailableException.TIMED_OUT,
+            PasswordHashingUnavailableException.INTERRUPTED, PasswordHashingUnavailableException.IMPORT_STOPPED);
+
+    public static final String INVALID_CREDENTIALS_DETAIL = "Invalid credentials: wrong username or password.";
+
+    private static final String TYPE_PREFIX = "urn:problem:";
+
+    private final HttpStatus status;
+    private final String type;
+    private final String title;
+    private final byte[] head;
+    private final Map<String, byte[]> fixedBodies = new HashMap<>();
+
+    ProblemType(HttpStatus status, String slug, String title, String... fixedDetails) {
+        this.status = status;
+        this.type = TYPE_PREFIX + slug;
+        this.title = title;
+        this.head = ("{\"type\":" + quote(type) + ",\"title\":" + quote(title) + ",\"status\":" + status.value()
+                + ",\"detail\":").getBytes(StandardCharsets.UTF_8);
+        for (String detail : fixedDetails) {
+            fixedBodies.put(detail, compose(detail));
+        }
+    }
+
+    public HttpStatus status() {
+        return status;
+    }
+
+    public String type() {
+        return type;
+    }
+
+    public String title() {
+        return title;
+    }
+
+    /**
+     * The UTF-8 problem body with the detail. Callers must not modify the returned array.
+     */
+    public byte[] body(String detail) {
+        byte[] body = fixedBodies.get(detail);
+        return body != null ? body : compose(detail);
+    }
+
+    private byte[] compose(String detail) {
+        byte[] encodedDetail = detail == null ? "null".getBytes(StandardCharsets.UTF_8) : quoteAsUtf8(detail);
+        ByteArrayOutputStream body = new ByteArrayOutputStream(head.length + encodedDetail.length + 1);
+        body.writeBytes(head);
+        body.writeBytes(encodedDetail);
+        body.write('}');
+        return body.toByteArray();
+    }
+
+    private static String quote(String value) {
+        return "\"" + new String(JsonStringEncoder.getInstance().quoteAsString(value)) + "\"";
+    }
+
+    private static byte[] quoteAsUtf8(String value) {
+        byte[] escaped = JsonStringEncoder.getInstance().quoteAsUTF8(value);
+        byte[] quoted = new byte[escaped.length + 2];
+        quoted[0] = '"';
+        System.arraycopy(escaped, 0, quoted, 1, escaped.length);
+        quoted[quoted.length - 1] = '"';
+        return quoted;
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.treladev.exception;
+
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+/**
+ * Thrown by the login lookup when no user has the username, e.g. for every attempt of a credential-stuffing run.
+ *
+ * - It extends Spring Security's {@link UsernameNotFoundException}, which the authentication provider expects,
+ *   and records no stack trace, like the {@link DomainException}s.
+ * - The message is fixed: the username is already logged by the lookup and should not be repeated in errors.
+ */
+public class UnknownUsernameException extends UsernameNotFoundException {
+
+    public static final String MESSAGE = "User not found.";
+
+    public UnknownUsernameException() {
+        super(MESSAGE);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.treladev.exception;
+
+/**
+ * Thrown when no user has the requested ID.
+ */
+public class UserNotFoundException extends DomainException {
+
+    private final long id;
+
+    public UserNotFoundException(long id) {
+        super(ProblemType.USER_NOT_FOUND);
+        this.id = id;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public String getMessage() {
+        return "No user found with id " + id;
+    }
+}
@@ -1,7 +1,20 @@
 package com.github.treladev.exception;
 
-public class UsernameAlreadyInUseException extends RuntimeException {
-    public UsernameAlreadyInUseException(String message){
-        super(message);
+public class UsernameAlreadyInUseException extends DomainException {
+
+    private final String username;
+
+    public UsernameAlreadyInUseException(String username){
+        super(ProblemType.USERNAME_IN_USE);
+        this.username = username;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String getMessage() {
+        return "Username '" + username + "' is already in use.";
     }
 }
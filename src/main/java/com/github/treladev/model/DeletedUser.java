@@ -0,0 +1,37 @@
+package com.github.treladev.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Records a deleted user, mapped to the database table.
+ *
+ * - Written in the transaction that deletes the user; user IDs are never reused.
+ * - Kept for one token lifetime, until every token of the user has expired.
+ */
+@Entity
+@Table(name = "deleted_users")
+public class DeletedUser {
+
+    @Id
+    private Long userId;
+
+    private Instant deletedAt;
+
+    public DeletedUser() {
+    }
+
+    public DeletedUser(Long userId, Instant deletedAt) {
+        this.userId = userId;
+        this.deletedAt = deletedAt;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
+}
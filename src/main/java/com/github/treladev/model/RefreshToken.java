@@ -0,0 +1,85 @@
+package com.github.treladev.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Represents an issued refresh token mapped to the database table.
+ *
+ * - Only the SHA-256 hash of the opaque token is stored.
+ * - Tokens rotated from the same login share a family, so a reused token can revoke all of them.
+ */
+@Entity
+@Table(name = "refresh_tokens")
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY) // Auto-generates the ID for each new record
+    private Long id;
+
+    private String tokenHash;
+    private String familyId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    private Instant expiresAt;
+    private boolean used;
+    private boolean revoked;
+
+    public RefreshToken() {
+    }
+
+    public RefreshToken(String tokenHash, String familyId, User user, Instant expiresAt) {
+        this.tokenHash = tokenHash;
+        this.familyId = familyId;
+        this.user = user;
+        this.expiresAt = expiresAt;
+    }
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    public String getFamilyId() {
+        return familyId;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isUsed() {
+        return used;
+    }
+
+    public void setUsed(boolean used) {
+        this.used = used;
+    }
+
+    public boolean isRevoked() {
+        return revoked;
+    }
+
+    public void setRevoked(boolean revoked) {
+        this.revoked = revoked;
+    }
+}
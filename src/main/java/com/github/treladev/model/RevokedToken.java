@@ -0,0 +1,43 @@
+package com.github.treladev.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Represents an access token revoked on logout, mapped to the database table.
+ *
+ * - Identified by the `jti` claim of the token.
+ * - Kept until the token expires on its own; from then on it cannot match a valid token.
+ */
+@Entity
+@Table(name = "revoked_tokens")
+public class RevokedToken {
+
+    @Id
+    private String tokenId;
+
+    private Instant expiresAt;
+    private Instant revokedAt;
+
+    public RevokedToken() {
+    }
+
+    public RevokedToken(String tokenId, Instant expiresAt, Instant revokedAt) {
+        this.tokenId = tokenId;
+        this.expiresAt = expiresAt;
+        this.revokedAt = revokedAt;
+    }
+
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public Instant getRevokedAt() {
+        return revokedAt;
+    }
+}
@@ -2,19 +2,34 @@ package com.github.treladev.model;
 
 // Import statements for JPA annotations
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
+import java.time.Instant;
+import java.util.Locale;
 
 /**
  * Represents a User entity mapped to the database table.
  */
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users") // Regions are sized in hibernate-jcache.conf
+@NaturalIdCache(region = "users-by-username")
 @Table(name = "users") // Mapping the entity to the table named "user" (escaped for SQL keywords)
 public class User {
 
+    // Must match the increment of users_id_seq (V6__pooled_users_id_sequence.sql)
+    public static final int ID_ALLOCATION_SIZE = 50;
+
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // Auto-generates the ID for each new record
+    // IDs come from the sequence in blocks of 50, so inserts need no round trip for the ID and can be batched
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_id_seq")
+    @SequenceGenerator(name = "users_id_seq", sequenceName = "users_id_seq", allocationSize = User.ID_ALLOCATION_SIZE)
     private Long id;
 
+    @NaturalId(mutable = true) // Usernames can be changed through PUT /users/{id}
     private String username; // Username for the user
 
 
@@ -24,6 +39,10 @@ public class User {
     private boolean accountNonLocked=true;
     private boolean credentialsNonExpired=true;
     private boolean enabled=true;
+    // Incremented whenever the access tokens issued so far must no longer be accepted
+    private int tokenVersion;
+    // When tokenVersion was last incremented, to restore recent raises at startup
+    private Instant tokenVersionRaisedAt;
 
     @ManyToOne
     @JoinColumn(name = "role_id")
@@ -35,17 +54,25 @@ public class User {
 
     public User(String username, String password, Role role) {
         this.password = password;
-        this.username = username;
+        this.username = normalizeUsername(username);
         this.role = role;
     }
 
 
     public User(Long id, String username, String password, Role role) {
         this.id = id;
-        this.username = username;
+        this.username = normalizeUsername(username);
         this.password = password;
         this.role = role;
     }
+
+    /**
+     * Usernames are case-insensitive and stored in lower case (enforced by a check constraint in V5).
+     */
+    public static String normalizeUsername(String username) {
+        return username == null ? null : username.toLowerCase(Locale.ROOT);
+    }
+
     @Override
     public String toString() {
         return "User{" +
@@ -56,6 +83,7 @@ public class User {
                 ", accountNonLocked=" + accountNonLocked +
                 ", credentialsNonExpired=" + credentialsNonExpired +
                 ", enabled=" + enabled +
+                ", tokenVersion=" + tokenVersion +
                 ", role=" + role +
                 '}';
     }
@@ -102,6 +130,22 @@ public class User {
         this.accountNonExpired = accountNonExpired;
     }
 
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public void setTokenVersion(int tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+
+    public Instant getTokenVersionRaisedAt() {
+        return tokenVersionRaisedAt;
+    }
+
+    public void setTokenVersionRaisedAt(Instant tokenVersionRaisedAt) {
+        this.tokenVersionRaisedAt = tokenVersionRaisedAt;
+    }
+
     public String getPassword() {
         return password;
     }
@@ -115,7 +159,7 @@ public class User {
     }
 
     public void setUsername(String username) {
-        this.username = username;
+        this.username = normalizeUsername(username);
     }
 
     public Long getId() {
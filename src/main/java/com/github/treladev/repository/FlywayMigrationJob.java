@@ -0,0 +1,36 @@
+package com.github.treladev.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Migration job for instances started in fast-startup mode, which skip Flyway (see `application-migrate.properties`).
+ *
+ * - Flyway migrates and validates the schema while the context starts; a failed migration fails the start,
+ *   so the job exits with a non-zero code.
+ * - Once the context has started, the job closes it and exits with code 0.
+ */
+@Component
+@Profile("migrate")
+public class FlywayMigrationJob implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlywayMigrationJob.class);
+
+    private final ConfigurableApplicationContext context;
+
+    public FlywayMigrationJob(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        logger.info("Database migrations are up to date, exiting");
+        System.exit(SpringApplication.exit(context));
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.treladev.repository;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+
+/**
+ * Provides the JCache CacheManager behind the Hibernate second-level cache.
+ *
+ * - Caffeine reads the regions (`users`, `users-by-username`, `roles`) with their size and expiry
+ *   from `hibernate-jcache.conf`.
+ * - The manager is created here instead of through `hibernate.javax.cache.uri`, because Hibernate resolves that
+ *   URI to a `jar:` URL inside the packaged application, which Caffeine cannot read.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    static final String CACHING_PROVIDER = "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider";
+    static final URI CACHE_CONFIG = URI.create("classpath:hibernate-jcache.conf");
+
+    @Bean
+    public CacheManager hibernateCacheManager() {
+        return Caching.getCachingProvider(CACHING_PROVIDER)
+                .getCacheManager(CACHE_CONFIG, HibernateCacheConfig.class.getClassLoader());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+}
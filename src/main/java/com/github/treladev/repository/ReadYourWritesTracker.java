@@ -0,0 +1,63 @@
+package com.github.treladev.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+
+/**
+ * Remembers who has just written to the primary, so their reads do not hit a replica that lags behind.
+ *
+ * - Within the request that wrote, every later read goes to the primary.
+ * - An authenticated user stays pinned to the primary for `datasource.read-your-writes-window` after their last
+ *   write, which should exceed the usual replication lag.
+ * - Requests of other users keep reading from the replicas.
+ */
+public class ReadYourWritesTracker {
+
+    private static final String REQUEST_ATTRIBUTE = ReadYourWritesTracker.class.getName() + ".WROTE";
+
+    // Username -> present while the user is pinned
+    private final Cache<String, Boolean> pinnedUsers;
+
+    public ReadYourWritesTracker(Duration window, long maximumSize) {
+        this.pinnedUsers = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    public void recordWrite() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            request.setAttribute(REQUEST_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+        String username = currentUsername();
+        if (username != null) {
+            pinnedUsers.put(username, Boolean.TRUE);
+        }
+    }
+
+    public boolean isPinned() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null && request.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null) {
+            return true;
+        }
+        String username = currentUsername();
+        return username != null && pinnedUsers.getIfPresent(username) != null;
+    }
+
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
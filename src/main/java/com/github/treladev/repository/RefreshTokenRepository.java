@@ -0,0 +1,42 @@
+package com.github.treladev.repository;
+
+import com.github.treladev.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    // Loads the token together with its user and role in one indexed query
+    @Query("select t from RefreshToken t join fetch t.user u join fetch u.role where t.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    /**
+     * Marks the token as used unless it already is or its family was revoked. Concurrent calls for the same token
+     * are serialized by the row lock, so only one of them can get 1.
+     *
+     * @return 1 if the caller now owns the token, 0 if another request used it first.
+     */
+    @Modifying
+    @Query("update RefreshToken t set t.used = true where t.id = :id and t.used = false and t.revoked = false")
+    int claim(Long id);
+
+    @Modifying
+    @Query("update RefreshToken t set t.revoked = true where t.familyId = :familyId")
+    int revokeFamily(String familyId);
+
+    // Every login of the user, e.g. after a password change
+    @Modifying
+    @Query("update RefreshToken t set t.revoked = true where t.user.id = :userId and t.revoked = false")
+    int revokeAllOfUser(Long userId);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.expiresAt <= :now")
+    int deleteExpired(Instant now);
+
+}
@@ -0,0 +1,67 @@
+package com.github.treladev.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routes read-only transactions to read replicas, enabled by listing them in `datasource.replica-urls`.
+ *
+ * - The primary pool is configured by `spring.datasource.*` as before; each replica gets its own pool
+ *   with the same credentials and Hikari settings, marked read-only.
+ * - `@Transactional(readOnly = true)` methods, including the read methods of Spring Data repositories,
+ *   read from the replicas; see {@link ReplicaRoutingDataSource} for the exceptions.
+ * - Without replicas, Spring Boot's single data source is used unchanged.
+ */
+@Configuration
+@ConditionalOnProperty("datasource.replica-urls")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(
+            @Value("${datasource.read-your-writes-window:5s}") Duration window,
+            @Value("${datasource.read-your-writes-maximum-users:10000}") long maximumUsers) {
+        return new ReadYourWritesTracker(window, maximumUsers);
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             @Value("${datasource.replica-urls}") String[] replicaUrls,
+                                                             ReadYourWritesTracker readYourWritesTracker) {
+        List<HikariDataSource> replicas = new ArrayList<>(replicaUrls.length);
+        for (String url : replicaUrls) {
+            HikariDataSource replica = new HikariDataSource();
+            primaryDataSource.copyStateTo(replica);
+            replica.setJdbcUrl(url.strip());
+            replica.setReadOnly(true);
+            replica.setPoolName(ReplicaRoutingDataSource.REPLICA_PREFIX + replicas.size());
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, readYourWritesTracker);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
@@ -0,0 +1,91 @@
+package com.github.treladev.repository;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Sends the connections of read-only transactions to the replicas and everything else to the primary.
+ *
+ * - Replicas take turns (round robin).
+ * - Read-only transactions go to the primary while {@link ReadYourWritesTracker} pins the current request or user,
+ *   and inside {@link #onPrimary(Supplier)}.
+ * - Any connection for a read-write transaction counts as a write, even if the transaction only reads.
+ * - The decision needs the read-only flag of the transaction, which Spring sets after it began the transaction.
+ *   This data source must therefore sit behind a `LazyConnectionDataSourceProxy`, which only fetches
+ *   the connection when the first statement runs.
+ * - Closing it closes the replica pools; the primary is closed by its owner.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA_PREFIX = "replica-";
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    private final List<? extends DataSource> replicas;
+    private final int replicaCount;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<? extends DataSource> replicas,
+                                    ReadYourWritesTracker readYourWritesTracker) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(REPLICA_PREFIX + i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        this.replicas = List.copyOf(replicas);
+        this.replicaCount = replicas.size();
+        this.readYourWritesTracker = readYourWritesTracker;
+    }
+
+    /**
+     * Runs the action with read-only transactions on the primary, e.g. to retry a read that may have hit a lagging
+     * replica. Has no effect on a transaction that already holds a connection.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean previous = FORCE_PRIMARY.get();
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                FORCE_PRIMARY.remove();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            // Startup (Flyway, Hibernate metadata) and other work outside transactions
+            return PRIMARY;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            readYourWritesTracker.recordWrite();
+            return PRIMARY;
+        }
+        if (replicaCount == 0 || FORCE_PRIMARY.get() != null || readYourWritesTracker.isPinned()) {
+            return PRIMARY;
+        }
+        return REPLICA_PREFIX + Math.floorMod(nextReplica.getAndIncrement(), replicaCount);
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource replica : replicas) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
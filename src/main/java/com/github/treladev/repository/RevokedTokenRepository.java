@@ -0,0 +1,23 @@
+package com.github.treladev.repository;
+
+import com.github.treladev.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    // The revocations made after the given time whose tokens have not expired yet
+    @Query("select t from RevokedToken t where t.revokedAt > :since and t.expiresAt > :now")
+    List<RevokedToken> findRevokedSince(Instant since, Instant now);
+
+    @Modifying
+    @Query("delete from RevokedToken t where t.expiresAt <= :now")
+    int deleteExpired(Instant now);
+
+}
@@ -0,0 +1,17 @@
+package com.github.treladev.repository;
+
+import com.github.treladev.model.User;
+
+import java.util.List;
+
+/**
+ * Batched insert of many new users, implemented in {@link UserBulkInsertRepositoryImpl}.
+ */
+public interface UserBulkInsertRepository {
+
+    /**
+     * Inserts all users in one transaction using JDBC batches.
+     * Either all users are inserted or, on any constraint violation, none.
+     */
+    void insertAll(List<User> users);
+}
@@ -0,0 +1,40 @@
+package com.github.treladev.repository;
+
+import com.github.treladev.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Inserts users the way bulk imports need it.
+ *
+ * - IDs come from the pooled sequence, so Hibernate groups the inserts into JDBC batches
+ *   (`hibernate.jdbc.batch_size`), which the PostgreSQL driver rewrites into multi-row inserts.
+ * - The second-level cache is bypassed: freshly imported users would only push out the users that are
+ *   actually logging in.
+ * - The persistence context is cleared after the flush, so imported entities do not pile up in memory.
+ */
+class UserBulkInsertRepositoryImpl implements UserBulkInsertRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public void insertAll(List<User> users) {
+        Session session = entityManager.unwrap(Session.class);
+        CacheMode previousCacheMode = session.getCacheMode();
+        session.setCacheMode(CacheMode.IGNORE);
+        try {
+            users.forEach(session::persist);
+            session.flush();
+            session.clear();
+        } finally {
+            session.setCacheMode(previousCacheMode);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.github.treladev.repository;
+
+import com.github.treladev.model.Role;
+
+import java.util.List;
+
+/**
+ * Set-based changes to all users matching a {@link UserFilter}, implemented in {@link UserBulkUpdateRepositoryImpl}.
+ *
+ * Every change is a single UPDATE or DELETE statement; no user is loaded into the persistence context.
+ */
+public interface UserBulkUpdateRepository {
+
+    /**
+     * Reads the IDs and token versions of the matching users, e.g. to reject their tokens after a change.
+     */
+    List<UserTokenVersion> findTokenVersionsMatching(UserFilter filter);
+
+    /**
+     * Reads the IDs and token versions of the matching users and locks their rows (SELECT ... FOR UPDATE)
+     * until the transaction ends, so no other transaction changes them before a bulk UPDATE.
+     */
+    List<UserTokenVersion> lockTokenVersionsMatching(UserFilter filter);
+
+    /**
+     * Deletes the matching users; their refresh tokens go with them (ON DELETE CASCADE).
+     * The deleted IDs are recorded in deleted_users, so every instance rejects their tokens.
+     *
+     * @return The number of deleted users.
+     */
+    int deleteMatching(UserFilter filter);
+
+    /**
+     * Enables or disables the matching users. Disabling also increments their token version.
+     *
+     * @return The number of matching users.
+     */
+    int updateEnabledMatching(UserFilter filter, boolean enabled);
+
+    /**
+     * Assigns the role to the matching users and increments their token version.
+     *
+     * @return The number of matching users.
+     */
+    int updateRoleMatching(UserFilter filter, Role role);
+}
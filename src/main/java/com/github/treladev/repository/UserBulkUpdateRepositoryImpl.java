@@ -0,0 +1,160 @@
+package com.github.treladev.repository;
+
+import com.github.treladev.model.DeletedUser;
+import com.github.treladev.model.Role;
+import com.github.treladev.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaDelete;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.Session;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.hibernate.query.criteria.JpaCriteriaInsertSelect;
+import org.hibernate.query.criteria.JpaRoot;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds one statement per operation from the criteria of a {@link UserFilter}.
+ *
+ * - Roles are compared through the users.role_id column, so no statement joins the roles table.
+ * - Token versions are incremented by the same UPDATE that changes the users.
+ * - Deleted users are recorded by an INSERT ... SELECT with the same criteria, right before the DELETE.
+ * - Hibernate evicts the users and natural-id cache regions after each bulk statement,
+ *   so the second-level cache never serves a deleted or outdated user.
+ */
+class UserBulkUpdateRepositoryImpl implements UserBulkUpdateRepository {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserTokenVersion> findTokenVersionsMatching(UserFilter filter) {
+        return entityManager.createQuery(tokenVersionsQuery(filter)).getResultList();
+    }
+
+    @Override
+    @Transactional
+    public List<UserTokenVersion> lockTokenVersionsMatching(UserFilter filter) {
+        return entityManager.createQuery(tokenVersionsQuery(filter))
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+    }
+
+    @Override
+    @Transactional
+    public int deleteMatching(UserFilter filter) {
+        recordDeletions(filter);
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaDelete<User> delete = builder.createCriteriaDelete(User.class);
+        Root<User> user = delete.from(User.class);
+        delete.where(predicates(builder, user, filter));
+        return entityManager.createQuery(delete).executeUpdate();
+    }
+
+    @Override
+    @Transactional
+    public int updateEnabledMatching(UserFilter filter, boolean enabled) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<User> update = builder.createCriteriaUpdate(User.class);
+        Root<User> user = update.from(User.class);
+        update.set(user.<Boolean>get("enabled"), enabled).where(predicates(builder, user, filter));
+        if (enabled) {
+            // Keeps the version, but lets other instances evict the enabled users from their caches
+            update.set(user.<Instant>get("tokenVersionRaisedAt"), Instant.now());
+        } else {
+            incrementTokenVersion(builder, update, user);
+        }
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    @Override
+    @Transactional
+    public int updateRoleMatching(UserFilter filter, Role role) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<User> update = builder.createCriteriaUpdate(User.class);
+        Root<User> user = update.from(User.class);
+        update.set(user.<Role>get("role"), role).where(predicates(builder, user, filter));
+        incrementTokenVersion(builder, update, user);
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    // INSERT INTO deleted_users (user_id, deleted_at) SELECT id, ? FROM users WHERE ...
+    private void recordDeletions(UserFilter filter) {
+        Session session = entityManager.unwrap(Session.class);
+        HibernateCriteriaBuilder builder = session.getCriteriaBuilder();
+        JpaCriteriaInsertSelect<DeletedUser> insert = builder.createCriteriaInsertSelect(DeletedUser.class);
+        JpaRoot<DeletedUser> deletedUser = insert.getTarget();
+        insert.setInsertionTargetPaths(deletedUser.get("userId"), deletedUser.get("deletedAt"));
+        CriteriaQuery<Tuple> matching = builder.createTupleQuery();
+        Root<User> user = matching.from(User.class);
+        matching.multiselect(user.get("id"), builder.literal(Instant.now())).where(predicates(builder, user, filter));
+        session.createMutationQuery(insert.select(matching)).executeUpdate();
+    }
+
+    private CriteriaQuery<UserTokenVersion> tokenVersionsQuery(UserFilter filter) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserTokenVersion> query = builder.createQuery(UserTokenVersion.class);
+        Root<User> user = query.from(User.class);
+        return query.select(builder.construct(UserTokenVersion.class, user.get("id"), user.get("username"),
+                        user.get("tokenVersion")))
+                .where(predicates(builder, user, filter));
+    }
+
+    private static void incrementTokenVersion(CriteriaBuilder builder, CriteriaUpdate<User> update, Root<User> user) {
+        Path<Integer> tokenVersion = user.get("tokenVersion");
+        update.set(tokenVersion, builder.sum(tokenVersion, 1));
+        update.set(user.<Instant>get("tokenVersionRaisedAt"), Instant.now());
+    }
+
+    private static Predicate[] predicates(CriteriaBuilder builder, Root<User> user, UserFilter filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.ids() != null) {
+            predicates.add(user.get("id").in(filter.ids()));
+        }
+        if (filter.role() != null) {
+            predicates.add(builder.equal(roleId(user), filter.role().getId()));
+        }
+        if (filter.enabled() != null) {
+            predicates.add(builder.equal(user.get("enabled"), filter.enabled()));
+        }
+        if (filter.usernamePrefix() != null) {
+            predicates.add(builder.like(user.get("username"), escapeLike(filter.usernamePrefix()) + "%", LIKE_ESCAPE));
+        }
+        if (filter.excludedRole() != null) {
+            Path<Long> roleId = roleId(user);
+            predicates.add(builder.or(builder.isNull(roleId), builder.notEqual(roleId, filter.excludedRole().getId())));
+        }
+        return predicates.toArray(Predicate[]::new);
+    }
+
+    // The foreign key column itself, Hibernate does not join the roles table for the ID of a to-one association
+    private static Path<Long> roleId(Root<User> user) {
+        return user.get("role").get("id");
+    }
+
+    private static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
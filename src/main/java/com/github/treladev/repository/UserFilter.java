@@ -0,0 +1,60 @@
+package com.github.treladev.repository;
+
+import com.github.treladev.exception.InvalidUserFilterException;
+import com.github.treladev.model.Role;
+import com.github.treladev.model.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Selects the users of a set-based admin operation. Null criteria are ignored, all others must match.
+ *
+ * @param ids            Users with one of these IDs, copied; null IDs are rejected.
+ * @param role           Users with this role.
+ * @param enabled        Users whose account is enabled (true) or disabled (false).
+ * @param usernamePrefix Users whose username starts with this prefix, ignoring case.
+ * @param excludedRole   Users with this role never match, e.g. admins when a moderator runs the operation.
+ */
+public record UserFilter(Collection<Long> ids, Role role, Boolean enabled, String usernamePrefix, Role excludedRole) {
+
+    /**
+     * @throws InvalidUserFilterException if the IDs contain null.
+     */
+    public UserFilter {
+        if (ids != null) {
+            if (ids.stream().anyMatch(Objects::isNull)) {
+                throw new InvalidUserFilterException(InvalidUserFilterException.NULL_ID);
+            }
+            ids = List.copyOf(ids);
+        }
+        usernamePrefix = usernamePrefix == null || usernamePrefix.isEmpty() ? null : User.normalizeUsername(usernamePrefix);
+    }
+
+    public static UserFilter byIds(Collection<Long> ids) {
+        return new UserFilter(ids, null, null, null, null);
+    }
+
+    public static UserFilter byRole(Role role) {
+        return new UserFilter(null, role, null, null, null);
+    }
+
+    public UserFilter excluding(Role role) {
+        return new UserFilter(ids, this.role, enabled, usernamePrefix, role);
+    }
+
+    /**
+     * True if no criterion selects users, i.e. the filter would match the whole table.
+     */
+    public boolean isUnrestricted() {
+        return ids == null && role == null && enabled == null && usernamePrefix == null;
+    }
+
+    /**
+     * True if the filter cannot match any user, so no statement needs to run.
+     */
+    public boolean matchesNothing() {
+        return ids != null && ids.isEmpty();
+    }
+}
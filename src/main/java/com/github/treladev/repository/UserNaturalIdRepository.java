@@ -0,0 +1,24 @@
+package com.github.treladev.repository;
+
+import com.github.treladev.model.User;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Lookup of users by their natural ID and eviction from the second-level cache,
+ * implemented in {@link UserNaturalIdRepositoryImpl}.
+ */
+public interface UserNaturalIdRepository {
+
+    /**
+     * Finds a user by username, ignoring case, through the natural-id cache,
+     * so repeated lookups do not reach the database.
+     */
+    Optional<User> findByUsername(String username);
+
+    /**
+     * Evicts the given users from the second-level cache of this instance, for users changed by another instance.
+     */
+    void evictFromCache(Collection<Long> ids);
+}
@@ -0,0 +1,54 @@
+package com.github.treladev.repository;
+
+import com.github.treladev.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceUnit;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Resolves usernames through Hibernate's natural-id API instead of a derived query.
+ *
+ * - A derived `findByUsername` query always goes to the database; query results are never served from the
+ *   second-level cache.
+ * - The natural-id lookup resolves username -> ID from the natural-id cache region and then loads the user
+ *   (and its role) from the entity regions, so a warm login issues no SQL at all.
+ * - The username is normalized first, since usernames are stored in lower case.
+ * - Runs in its own read-only transaction when called without one: outside a transaction the shared
+ *   EntityManager would hand out a Session that is already closed.
+ * - Eviction drops the whole natural-id region: a renamed user can still be cached under the old username,
+ *   and Hibernate offers no eviction by ID for that region.
+ */
+@Transactional(readOnly = true)
+class UserNaturalIdRepositoryImpl implements UserNaturalIdRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public Optional<User> findByUsername(String username) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .loadOptional(User.normalizeUsername(username));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void evictFromCache(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        ids.forEach(id -> entityManagerFactory.getCache().evict(User.class, id));
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictNaturalIdData(User.class);
+    }
+}
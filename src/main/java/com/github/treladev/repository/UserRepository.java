@@ -1,14 +1,43 @@
 package com.github.treladev.repository;
 
+import com.github.treladev.dto.UserSummaryDto;
 import com.github.treladev.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 
 @Repository
-public interface UserRepository extends JpaRepository<User,Long> {
-	
-	Optional<User> findByUsername(String username);
+public interface UserRepository extends JpaRepository<User,Long>, UserStreamingRepository, UserNaturalIdRepository,
+		UserBulkInsertRepository, UserBulkUpdateRepository {
+
+	// Keyset pagination: seeks past the last seen ID through the primary key index instead of skipping rows.
+	// Users and role names are read in one join query straight into the read model.
+	@Query("select new com.github.treladev.dto.UserSummaryDto(u.id, u.username, r.name, "
+			+ "u.enabled, u.accountNonLocked, u.accountNonExpired, u.credentialsNonExpired) "
+			+ "from User u left join u.role r where u.id > :afterId order by u.id")
+	List<UserSummaryDto> findSummariesAfter(long afterId, Limit limit);
+
+	// Which of the given (normalized) usernames are taken, in one lookup through the unique username index
+	@Query("select u.username from User u where u.username in :usernames")
+	List<String> findExistingUsernames(Collection<String> usernames);
+
+	// Users whose token version was incremented after the given time, see TokenVersionTableLoader
+	@Query("select new com.github.treladev.repository.UserTokenVersion(u.id, u.username, u.tokenVersion) from User u "
+			+ "where u.tokenVersionRaisedAt > :since")
+	List<UserTokenVersion> findTokenVersionsRaisedSince(Instant since);
+
+	// Users deleted after the given time, recorded by deleteMatching, see TokenVersionTableLoader
+	@Query("select d.userId from DeletedUser d where d.deletedAt > :since")
+	List<Long> findIdsDeletedSince(Instant since);
+
+	@Modifying
+	@Query("delete from DeletedUser d where d.deletedAt <= :before")
+	int deleteDeletionsBefore(Instant before);
 
 }
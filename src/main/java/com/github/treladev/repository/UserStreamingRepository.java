@@ -0,0 +1,17 @@
+package com.github.treladev.repository;
+
+import com.github.treladev.dto.UserSummaryDto;
+
+import java.util.function.Consumer;
+
+/**
+ * Streaming read of the whole users table, implemented in {@link UserStreamingRepositoryImpl}.
+ */
+public interface UserStreamingRepository {
+
+    /**
+     * Passes every user, ordered by ID, to the action while the rows are still being read.
+     * Must be called inside a transaction.
+     */
+    void forEachUserSummary(Consumer<? super UserSummaryDto> action);
+}
@@ -0,0 +1,36 @@
+package com.github.treladev.repository;
+
+import com.github.treladev.dto.UserSummaryDto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Reads users through a server-side cursor so memory use does not depend on the size of the table.
+ *
+ * - The JDBC fetch size makes PostgreSQL send rows in batches instead of the whole result set at once
+ *   (it only does so inside a transaction).
+ * - Rows are read into unmanaged DTOs, so the persistence context does not grow either.
+ */
+class UserStreamingRepositoryImpl implements UserStreamingRepository {
+
+    static final int FETCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void forEachUserSummary(Consumer<? super UserSummaryDto> action) {
+        try (Stream<UserSummaryDto> users = entityManager
+                .createQuery("select new com.github.treladev.dto.UserSummaryDto(u.id, u.username, r.name, "
+                        + "u.enabled, u.accountNonLocked, u.accountNonExpired, u.credentialsNonExpired) "
+                        + "from User u left join u.role r order by u.id", UserSummaryDto.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                .getResultStream()) {
+            users.forEach(action);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.github.treladev.repository;
+
+/**
+ * ID, username and current token version of a user, read before bulk changes that invalidate the user's tokens.
+ * The username identifies the user in the login cache.
+ */
+public record UserTokenVersion(Long id, String username, int tokenVersion) {
+}
@@ -0,0 +1,28 @@
+package com.github.treladev.security;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+
+/**
+ * Enables `@Async` methods and runs them with the SecurityContext of the caller.
+ *
+ * - The SecurityContext is stored per thread, so work handed to another thread would otherwise run unauthenticated
+ *   and `@PreAuthorize` checks on async methods would fail.
+ * - Spring Boot applies the decorator to the application task executor in both thread modes:
+ *   a thread pool by default, a virtual thread per task with `spring.threads.virtual.enabled=true`.
+ */
+@Configuration
+@EnableAsync
+public class AsyncSecurityConfig {
+
+    /**
+     * Captures the SecurityContext when a task is submitted and restores it on the thread that runs the task.
+     */
+    @Bean
+    public TaskDecorator securityContextTaskDecorator() {
+        return runnable -> DelegatingSecurityContextRunnable.create(runnable, null);
+    }
+}
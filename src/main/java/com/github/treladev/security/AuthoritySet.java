@@ -0,0 +1,65 @@
+package com.github.treladev.security;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable set of granted authorities with a precomputed bitmask of its known roles.
+ *
+ * - Role checks are a single bitwise test instead of a scan with string comparisons.
+ * - Instances for known role combinations are shared, see {@link RoleAuthorities}.
+ */
+public final class AuthoritySet extends AbstractSet<GrantedAuthority> {
+
+    private final int roleMask;
+    private final List<GrantedAuthority> authorities;
+    private final String claim;
+
+    AuthoritySet(int roleMask, List<GrantedAuthority> authorities) {
+        this.roleMask = roleMask;
+        this.authorities = List.copyOf(authorities);
+        this.claim = this.authorities.stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.joining(","));
+    }
+
+    public boolean hasRole(KnownRole role) {
+        return (roleMask & role.bit()) != 0;
+    }
+
+    public int roleMask() {
+        return roleMask;
+    }
+
+    /**
+     * Returns the authorities as the comma-separated `roles` claim used in JWT tokens.
+     */
+    public String claim() {
+        return claim;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (o instanceof GrantedAuthority authority) {
+            KnownRole role = KnownRole.fromAuthority(authority.getAuthority());
+            if (role != null) {
+                return hasRole(role);
+            }
+        }
+        return authorities.contains(o);
+    }
+
+    @Override
+    public Iterator<GrantedAuthority> iterator() {
+        return authorities.iterator();
+    }
+
+    @Override
+    public int size() {
+        return authorities.size();
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.treladev.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.treladev.model.User;
+import com.github.treladev.security.jwt.JwtUtil;
+import com.github.treladev.security.jwt.TokenVersionTable;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Bounded cache of the users loaded for username/password logins.
+ *
+ * - Repeated logins of the same user, e.g. a client retrying, are checked without loading the user again.
+ * - Entries expire `security.user-cache.ttl` after they were loaded, at the latest after one token lifetime.
+ * - `UserService` removes the users it updates, disables, reassigns or deletes once the change has committed.
+ *   Changes made on another instance drop the entry on lookup as soon as the {@link TokenVersionTable} no longer
+ *   accepts its token version, i.e. within `jwt.sync-interval`.
+ * - Only users who can log in are cached, so enabling a user takes effect right away.
+ * - Sits in front of the `UserDetailsService` rather than in the `DaoAuthenticationProvider`, which would retry
+ *   every failed login of a cached user with a reloaded one and verify a wrong password twice.
+ * - Safe to share: {@link CustomUserDetails} is immutable and its password hash is not erased after a login.
+ * - Keyed by the normalized username, so logins differing only in letter case share one entry.
+ * - Hit/miss statistics are published as `cache.gets{cache=login-users}` and related cache metrics.
+ */
+@Component
+public class CaffeineUserCache implements UserCache, MeterBinder {
+
+    private final Cache<String, UserDetails> cache;
+    private final TokenVersionTable tokenVersionTable;
+
+    public CaffeineUserCache(@Value("${security.user-cache.maximum-size:10000}") long maximumSize,
+                             @Value("${security.user-cache.ttl:5m}") Duration ttl,
+                             TokenVersionTable tokenVersionTable) {
+        this.tokenVersionTable = tokenVersionTable;
+        // The version table forgets changes after one token lifetime, so no entry may outlive it
+        Duration boundedTtl = ttl.compareTo(JwtUtil.TOKEN_LIFETIME) > 0 ? JwtUtil.TOKEN_LIFETIME : ttl;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(boundedTtl)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        if (username == null) {
+            return null;
+        }
+        String key = User.normalizeUsername(username);
+        UserDetails user = cache.getIfPresent(key);
+        if (user instanceof CustomUserDetails details
+                && !tokenVersionTable.isCurrent(details.getId(), details.getTokenVersion())) {
+            cache.invalidate(key);
+            return null;
+        }
+        return user;
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        if (user.isEnabled() && user.isAccountNonLocked() && user.isAccountNonExpired()
+                && user.isCredentialsNonExpired()) {
+            cache.put(User.normalizeUsername(user.getUsername()), user);
+        }
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        cache.invalidate(User.normalizeUsername(username));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "login-users");
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
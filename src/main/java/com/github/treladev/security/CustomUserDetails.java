@@ -2,23 +2,31 @@ package com.github.treladev.security;
 
 import com.github.treladev.model.User;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
-import java.util.HashSet;
 import java.util.Set;
 
 
 public class CustomUserDetails implements UserDetails {
 
+    private final Long id;
     private final String username;
     private final String password;
     private final boolean accountNonExpired;
     private final boolean accountNonLocked;
     private final boolean credentialsNonExpired;
     private final boolean enabled;
+    private final int tokenVersion;
     private final Set<GrantedAuthority> authorities;
 
+    public Long getId() {
+        return id;
+    }
+
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
     @Override
     public Set<GrantedAuthority> getAuthorities() {
         return authorities;
@@ -56,14 +64,15 @@ public class CustomUserDetails implements UserDetails {
 
 
     public CustomUserDetails(User user){
+        this.id = user.getId();
         this.username= user.getUsername();
         this.password = user.getPassword();
         this.accountNonExpired = user.isAccountNonExpired();
         this.accountNonLocked = user.isAccountNonLocked();
         this.credentialsNonExpired = user.isCredentialsNonExpired();
         this.enabled = user.isEnabled();
-        this.authorities = new HashSet<>();
-        this.authorities.add(new SimpleGrantedAuthority(user.getRole().getName()));
+        this.tokenVersion = user.getTokenVersion();
+        this.authorities = RoleAuthorities.forClaim(user.getRole().getName());
     }
 
 }
@@ -1,8 +1,14 @@
 package com.github.treladev.security;
 
 
+import com.github.treladev.exception.UnknownUsernameException;
 import com.github.treladev.model.User;
+import com.github.treladev.repository.ReplicaRoutingDataSource;
 import com.github.treladev.repository.UserRepository;
+import com.github.treladev.security.jwt.JWTCustomUsernamePasswordAuthenticationFilter;
+import com.github.treladev.security.jwt.TokenVersionTable;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -10,23 +16,33 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Custom implementation of UserDetailsService for Spring Security.
  *
  * - Fetches user details from the database based on the username.
- * - Used by Spring Security during authentication.
+ * - Reads from a replica when replicas are configured, and retries on the primary if the user is not found there
+ *   or the replica still has a token version older than the {@link TokenVersionTable} accepts.
+ * - Used by Spring Security during authentication; each load is timed as `login.phase{phase=lookup}`.
  */
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
     private static final Logger logger = LoggerFactory.getLogger(CustomUserDetailsService.class);
     private final UserRepository userRepository;
+    private final TokenVersionTable tokenVersionTable;
+    private final Timer lookupTimer;
 
     /**
-     * Injects the UserRepository dependency.
+     * Injects the UserRepository and TokenVersionTable dependencies.
      */
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, TokenVersionTable tokenVersionTable,
+                                    MeterRegistry meterRegistry) {
         this.userRepository = userRepository;
+        this.tokenVersionTable = tokenVersionTable;
+        this.lookupTimer = JWTCustomUsernamePasswordAuthenticationFilter.phaseTimer(
+                JWTCustomUsernamePasswordAuthenticationFilter.LOGIN_PHASE_LOOKUP, meterRegistry);
     }
 
     /**
@@ -39,14 +55,22 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 
-        logger.info("Inside loadUserByUsername in CustomUserDetailsService. Username: " + username);
-
-        System.out.println(userRepository);
+        logger.debug("Loading user {}", username);
 
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
+        long startedAt = System.nanoTime();
+        try {
+            return new CustomUserDetails(findCurrentUser(username));
+        } finally {
+            lookupTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
 
-        // Convert the User entity into UserDetails
-        return new CustomUserDetails(user);
+    private User findCurrentUser(String username) {
+        return userRepository.findByUsername(username)
+                // Tokens issued for an outdated copy would be rejected right away
+                .filter(found -> tokenVersionTable.isCurrent(found.getId(), found.getTokenVersion()))
+                // A user who registered or changed a moment ago may not have reached the read replica yet
+                .or(() -> ReplicaRoutingDataSource.onPrimary(() -> userRepository.findByUsername(username)))
+                .orElseThrow(UnknownUsernameException::new);
     }
 }
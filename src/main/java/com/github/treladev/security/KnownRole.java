@@ -0,0 +1,56 @@
+package com.github.treladev.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * The roles seeded by `V2__insert_default_roles.sql`.
+ *
+ * - Each role owns one bit, so any combination of roles fits in an int mask.
+ * - Each role owns a single shared GrantedAuthority instance.
+ */
+public enum KnownRole {
+
+    USER("ROLE_USER"),
+    ADMIN("ROLE_ADMIN"),
+    MODERATOR("ROLE_MODERATOR"),
+    GUEST("ROLE_GUEST");
+
+    private final String authority;
+    private final GrantedAuthority grantedAuthority;
+
+    KnownRole(String authority) {
+        this.authority = authority;
+        this.grantedAuthority = new SimpleGrantedAuthority(authority);
+    }
+
+    public String authority() {
+        return authority;
+    }
+
+    public GrantedAuthority grantedAuthority() {
+        return grantedAuthority;
+    }
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * Resolves a role by its authority name (e.g. "ROLE_ADMIN").
+     *
+     * @return the matching role, or null if the name is not a known role.
+     */
+    public static KnownRole fromAuthority(String authority) {
+        if (authority == null) {
+            return null;
+        }
+        return switch (authority) {
+            case "ROLE_USER" -> USER;
+            case "ROLE_ADMIN" -> ADMIN;
+            case "ROLE_MODERATOR" -> MODERATOR;
+            case "ROLE_GUEST" -> GUEST;
+            default -> null;
+        };
+    }
+}
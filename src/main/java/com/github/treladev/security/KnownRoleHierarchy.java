@@ -0,0 +1,53 @@
+package com.github.treladev.security;
+
+import org.springframework.security.access.hierarchicalroles.RoleHierarchy;
+import org.springframework.security.access.hierarchicalroles.RoleHierarchyImpl;
+
+import java.util.List;
+
+/**
+ * The one definition of how the known roles include each other: ADMIN > MODERATOR > USER > GUEST.
+ *
+ * - {@link #ROLE_HIERARCHY} is published as a bean, so `hasRole` in URL rules and SpEL expressions follows it.
+ * - For typed checks, the hierarchy is compiled into one bitmask per role: the roles that grant it.
+ *   Checking an {@link AuthoritySet} against a required role is then a single bitwise test.
+ */
+public final class KnownRoleHierarchy {
+
+    public static final RoleHierarchy ROLE_HIERARCHY = RoleHierarchyImpl.withRolePrefix("")
+            .role(KnownRole.ADMIN.authority()).implies(KnownRole.MODERATOR.authority())
+            .role(KnownRole.MODERATOR.authority()).implies(KnownRole.USER.authority())
+            .role(KnownRole.USER.authority()).implies(KnownRole.GUEST.authority())
+            .build();
+
+    // Indexed by the ordinal of the required role
+    private static final int[] GRANTING_MASKS = new int[KnownRole.values().length];
+
+    static {
+        for (KnownRole held : KnownRole.values()) {
+            for (var reachable : ROLE_HIERARCHY.getReachableGrantedAuthorities(List.of(held.grantedAuthority()))) {
+                KnownRole granted = KnownRole.fromAuthority(reachable.getAuthority());
+                if (granted != null) {
+                    GRANTING_MASKS[granted.ordinal()] |= held.bit();
+                }
+            }
+        }
+    }
+
+    private KnownRoleHierarchy() {
+    }
+
+    /**
+     * Returns the mask of all roles that include the required role, the role itself among them.
+     */
+    public static int grantingMask(KnownRole required) {
+        return GRANTING_MASKS[required.ordinal()];
+    }
+
+    /**
+     * Checks whether the authorities include the required role, directly or through the hierarchy.
+     */
+    public static boolean hasRoleOrHigher(AuthoritySet authorities, KnownRole required) {
+        return (authorities.roleMask() & GRANTING_MASKS[required.ordinal()]) != 0;
+    }
+}
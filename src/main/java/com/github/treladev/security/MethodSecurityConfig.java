@@ -0,0 +1,42 @@
+package com.github.treladev.security;
+
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.support.Pointcuts;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.security.access.hierarchicalroles.RoleHierarchy;
+import org.springframework.security.authorization.method.AuthorizationInterceptorsOrder;
+import org.springframework.security.authorization.method.AuthorizationManagerBeforeMethodInterceptor;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+
+/**
+ * Method security for the web and test profiles alike.
+ *
+ * - `@RequireRole` methods are checked by {@link RequireRoleAuthorizationManager}, in the slot of `@PreAuthorize`.
+ * - `@PreAuthorize` and friends stay available for rules that need an expression; their `hasRole`
+ *   follows {@link KnownRoleHierarchy} as well.
+ */
+@Configuration
+@EnableMethodSecurity
+public class MethodSecurityConfig {
+
+    @Bean
+    static RoleHierarchy roleHierarchy() {
+        return KnownRoleHierarchy.ROLE_HIERARCHY;
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static AuthorizationManagerBeforeMethodInterceptor requireRoleAuthorizationInterceptor() {
+        Pointcut pointcut = Pointcuts.union(
+                new AnnotationMatchingPointcut(null, RequireRole.class, true),
+                new AnnotationMatchingPointcut(RequireRole.class, true));
+        AuthorizationManagerBeforeMethodInterceptor interceptor =
+                new AuthorizationManagerBeforeMethodInterceptor(pointcut, new RequireRoleAuthorizationManager());
+        interceptor.setOrder(AuthorizationInterceptorsOrder.PRE_AUTHORIZE.getOrder());
+        return interceptor;
+    }
+}
@@ -0,0 +1,21 @@
+package com.github.treladev.security;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Restricts a method, or every method of a class, to users holding at least the given role
+ * in {@link KnownRoleHierarchy}, e.g. `@RequireRole(KnownRole.MODERATOR)` admits moderators and admins.
+ *
+ * Checked by {@link RequireRoleAuthorizationManager} without evaluating an expression.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RequireRole {
+
+    KnownRole value();
+}
@@ -0,0 +1,62 @@
+package com.github.treladev.security;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.core.Authentication;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Grants calls to methods annotated with {@link RequireRole} to users holding the role or a higher one.
+ *
+ * - The annotation is resolved once per method and turned into the mask of granting roles.
+ * - A call then costs one map read and one bitwise test against the precomputed {@link AuthoritySet} mask;
+ *   no expression is parsed or evaluated and no decision object is allocated.
+ */
+public final class RequireRoleAuthorizationManager implements AuthorizationManager<MethodInvocation> {
+
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    private final Map<Method, Integer> grantingMasks = new ConcurrentHashMap<>();
+
+    @Override
+    public AuthorizationResult authorize(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        int grantingMask = grantingMasks.computeIfAbsent(invocation.getMethod(),
+                method -> grantingMask(method, invocation.getThis()));
+        Authentication current = authentication.get();
+        if (current == null || !current.isAuthenticated()) {
+            return DENIED;
+        }
+        return (RoleAuthorities.of(current.getAuthorities()).roleMask() & grantingMask) != 0 ? GRANTED : DENIED;
+    }
+
+    /**
+     * @deprecated Only implemented because the interface still requires it; use {@link #authorize}.
+     */
+    @Deprecated
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        return (AuthorizationDecision) authorize(authentication, invocation);
+    }
+
+    private static int grantingMask(Method method, Object target) {
+        Class<?> targetClass = target == null ? method.getDeclaringClass() : AopUtils.getTargetClass(target);
+        Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+        RequireRole requireRole = AnnotatedElementUtils.findMergedAnnotation(specificMethod, RequireRole.class);
+        if (requireRole == null) {
+            requireRole = AnnotatedElementUtils.findMergedAnnotation(targetClass, RequireRole.class);
+        }
+        if (requireRole == null) {
+            throw new IllegalStateException("No @RequireRole on " + specificMethod);
+        }
+        return KnownRoleHierarchy.grantingMask(requireRole.value());
+    }
+}
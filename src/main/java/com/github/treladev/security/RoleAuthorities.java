@@ -0,0 +1,101 @@
+package com.github.treladev.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of canonical authority sets.
+ *
+ * - One shared AuthoritySet is precomputed for every combination of {@link KnownRole}s.
+ * - Roles claims are resolved once and then served from a small lookup table,
+ *   so converting a token into authorities allocates nothing for known role sets.
+ * - Authorities outside the known roles still work, they just get a dedicated set.
+ */
+public final class RoleAuthorities {
+
+    // Upper bound for memoized claim strings; the known roles only produce a handful of them
+    private static final int MAX_CACHED_CLAIMS = 256;
+
+    private static final AuthoritySet[] CANONICAL_SETS = new AuthoritySet[1 << KnownRole.values().length];
+    private static final Map<String, AuthoritySet> SETS_BY_CLAIM = new ConcurrentHashMap<>();
+
+    public static final AuthoritySet EMPTY;
+
+    static {
+        for (int mask = 0; mask < CANONICAL_SETS.length; mask++) {
+            List<GrantedAuthority> authorities = new ArrayList<>();
+            for (KnownRole role : KnownRole.values()) {
+                if ((mask & role.bit()) != 0) {
+                    authorities.add(role.grantedAuthority());
+                }
+            }
+            CANONICAL_SETS[mask] = new AuthoritySet(mask, authorities);
+        }
+        EMPTY = CANONICAL_SETS[0];
+    }
+
+    private RoleAuthorities() {
+    }
+
+    /**
+     * Returns the shared set for a combination of known roles.
+     */
+    public static AuthoritySet of(int roleMask) {
+        return CANONICAL_SETS[roleMask];
+    }
+
+    /**
+     * Returns the authority set described by a comma-separated roles claim.
+     */
+    public static AuthoritySet forClaim(String rolesClaim) {
+        if (rolesClaim == null || rolesClaim.isEmpty()) {
+            return EMPTY;
+        }
+        AuthoritySet cached = SETS_BY_CLAIM.get(rolesClaim);
+        if (cached != null) {
+            return cached;
+        }
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        for (String role : rolesClaim.split(",")) {
+            authorities.add(new SimpleGrantedAuthority(role.trim()));
+        }
+        AuthoritySet authoritySet = of(authorities);
+        if (SETS_BY_CLAIM.size() < MAX_CACHED_CLAIMS) {
+            SETS_BY_CLAIM.putIfAbsent(rolesClaim, authoritySet);
+        }
+        return authoritySet;
+    }
+
+    /**
+     * Returns an authority set for arbitrary authorities, reusing the given instance if it already is one.
+     */
+    public static AuthoritySet of(Collection<? extends GrantedAuthority> authorities) {
+        if (authorities == null || authorities.isEmpty()) {
+            return EMPTY;
+        }
+        if (authorities instanceof AuthoritySet authoritySet) {
+            return authoritySet;
+        }
+        int mask = 0;
+        boolean onlyKnownRoles = true;
+        for (GrantedAuthority authority : authorities) {
+            KnownRole role = KnownRole.fromAuthority(authority.getAuthority());
+            if (role != null) {
+                mask |= role.bit();
+            } else {
+                onlyKnownRoles = false;
+            }
+        }
+        if (onlyKnownRoles) {
+            return of(mask);
+        }
+        return new AuthoritySet(mask, new ArrayList<>(new LinkedHashSet<>(authorities)));
+    }
+}
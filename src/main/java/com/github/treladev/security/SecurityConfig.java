@@ -4,19 +4,27 @@ import com.github.treladev.repository.UserRepository;
 import com.github.treladev.security.jwt.JWTCustomUsernamePasswordAuthenticationFilter;
 import com.github.treladev.security.jwt.JwtAuthenticationProvider;
 import com.github.treladev.security.jwt.JwtFilter;
+import com.github.treladev.security.jwt.JwtLogoutHandler;
+import com.github.treladev.security.jwt.TokenVersionTable;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.*;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.CachingUserDetailsService;
 import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
-import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.authentication.logout.HttpStatusReturningLogoutSuccessHandler;
 
+import java.time.Duration;
 import java.util.List;
 
 /**
@@ -25,10 +33,10 @@ import java.util.List;
  * - Configures authentication and authorization rules.
  * - Registers custom security filters.
  * - Provides user authentication mechanisms.
+ * - Method security and the role hierarchy are set up in {@link MethodSecurityConfig}.
  */
 @Configuration
 @EnableWebSecurity
-@EnableGlobalMethodSecurity(prePostEnabled = true)
 @Profile("!test")
 public class SecurityConfig {
 
@@ -36,6 +44,7 @@ public class SecurityConfig {
     private final JwtAuthenticationProvider jwtAuthenticationProvider;
     private final JWTCustomUsernamePasswordAuthenticationFilter jwtCustomUsernamePasswordAuthenticationFilter;
     private final JwtFilter jwtFilter;
+    private final JwtLogoutHandler jwtLogoutHandler;
 
     /**
      * Constructor for injecting dependencies.
@@ -43,20 +52,24 @@ public class SecurityConfig {
     public SecurityConfig(UserRepository userRepository,
                           JWTCustomUsernamePasswordAuthenticationFilter jwtCustomUsernamePasswordAuthenticationFilter,
                           JwtAuthenticationProvider jwtAuthenticationProvider,
-                          @Lazy JwtFilter jwtFilter) {
+                          @Lazy JwtFilter jwtFilter,
+                          JwtLogoutHandler jwtLogoutHandler) {
         this.userRepository = userRepository;
         this.jwtAuthenticationProvider = jwtAuthenticationProvider;
         this.jwtCustomUsernamePasswordAuthenticationFilter = jwtCustomUsernamePasswordAuthenticationFilter;
         this.jwtFilter = jwtFilter;
+        this.jwtLogoutHandler = jwtLogoutHandler;
     }
 
     /**
      * Configures HTTP security settings, including authentication and authorization rules.
      *
      * - Disables CSRF protection.
-     * - Allows public access to `/register` and `/login`.
+     * - Allows public access to `/register`, `/login` and `/token/refresh`.
      * - Requires authentication for all other endpoints.
+     * - Lets async dispatches (e.g. the end of `/users/stream`) through: their request was already authorized.
      * - Adds JWT-based authentication filters.
+     * - Revokes the JWT token on `/logout`.
      */
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -64,10 +77,18 @@ public class SecurityConfig {
         http.csrf(csrf -> csrf.disable());
 
         http.authorizeHttpRequests(auth -> auth
+                // The JWT filter does not run again on async dispatches, which would otherwise be unauthenticated
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/register/**").permitAll()
                 .requestMatchers("/login/**").permitAll()
+                .requestMatchers("/token/refresh").permitAll()
                 .anyRequest().authenticated());
 
+        // Logging out revokes the presented JWT token
+        http.logout(logout -> logout
+                .addLogoutHandler(jwtLogoutHandler)
+                .logoutSuccessHandler(new HttpStatusReturningLogoutSuccessHandler()));
+
         // Add custom authentication filters
         http.addFilterAt(jwtCustomUsernamePasswordAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
         http.addFilterBefore(jwtFilter, JWTCustomUsernamePasswordAuthenticationFilter.class);
@@ -79,20 +100,26 @@ public class SecurityConfig {
      * Custom UserDetailsService for loading user details from the database.
      */
     @Bean
-    public UserDetailsService userDetailsService() {
-        return new CustomUserDetailsService(userRepository);
+    public UserDetailsService userDetailsService(TokenVersionTable tokenVersionTable, MeterRegistry meterRegistry) {
+        return new CustomUserDetailsService(userRepository, tokenVersionTable, meterRegistry);
     }
 
     /**
      * Configures the authentication manager with:
-     * - DAO-based authentication (for username/password login).
+     * - DAO-based authentication (for username/password login), with loaded users cached.
      * - JWT-based authentication.
      */
     @Bean
-    public AuthenticationManager authenticationManager(UserDetailsService userDetailsService, PasswordEncoder passwordEncoder) {
+    public AuthenticationManager authenticationManager(UserDetailsService userDetailsService, PasswordEncoder passwordEncoder,
+                                                       UserCache userCache) {
+
+        // Repeated logins of a user skip loading it again. Not set on the provider: it would retry a wrong password
+        // of a cached user with a reloaded one, so the attempt would cost two BCrypt verifications.
+        CachingUserDetailsService cachingUserDetailsService = new CachingUserDetailsService(userDetailsService);
+        cachingUserDetailsService.setUserCache(userCache);
 
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
-        authProvider.setUserDetailsService(userDetailsService);
+        authProvider.setUserDetailsService(cachingUserDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder);
 
         return new ProviderManager(List.of(authProvider, jwtAuthenticationProvider));
@@ -100,9 +127,16 @@ public class SecurityConfig {
 
     /**
      * Defines the password encoder for encrypting user passwords.
+     *
+     * - BCrypt runs on a dedicated bounded pool instead of the request threads.
+     * - When the pool is saturated, callers are rejected quickly instead of queuing indefinitely.
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${security.password-hashing.threads:0}") int threads,
+                                           @Value("${security.password-hashing.queue-capacity:64}") int queueCapacity,
+                                           @Value("${security.password-hashing.max-wait:2s}") Duration maxWait) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), poolSize, queueCapacity, maxWait, meterRegistry);
     }
 }
@@ -2,83 +2,104 @@ package com.github.treladev.security;
 
 import com.github.treladev.exception.AdminRoleAssignmentException;
 import com.github.treladev.exception.AdminUpdateForbiddenException;
+import com.github.treladev.model.Role;
 import com.github.treladev.model.User;
-import com.github.treladev.service.UserService;
-import org.hibernate.tool.schema.internal.exec.ScriptTargetOutputToFile;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.PermissionEvaluator;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import java.io.Serializable;
-import java.util.Collection;
 
 /**
  * Custom permission evaluator for updating users.
  * Handles role-based logic to restrict sensitive actions like updating ADMIN users or assigning ADMIN roles.
+ *
+ * - The rules are evaluated once per combination of the actor's roles, the target's role and the assigned role
+ *   when the class loads; a check is then a single array read.
+ * - The target is the user entity the caller already loaded, so the check itself never queries the database.
  */
 @Component
 public class UserUpdatePermissionEvaluator implements PermissionEvaluator {
 
-    private final UserService userService;
+    /**
+     * Outcome of an update check.
+     */
+    public enum Decision {
+        ALLOW,
+        // The actor is neither a moderator nor an admin
+        DENY,
+        // A moderator tries to update an admin
+        ADMIN_TARGET_FORBIDDEN,
+        // A moderator tries to assign the ADMIN role
+        ADMIN_ASSIGNMENT_FORBIDDEN
+    }
+
+    private static final int KNOWN_ROLES = KnownRole.values().length;
+    // Index for roles outside KnownRole and for users without a role
+    private static final int OTHER_ROLE = KNOWN_ROLES;
+    private static final int ROLE_INDEXES = KNOWN_ROLES + 1;
+
+    // [actor role mask][target role][assigned role], flattened
+    private static final Decision[] DECISIONS = new Decision[(1 << KNOWN_ROLES) * ROLE_INDEXES * ROLE_INDEXES];
+
+    static {
+        for (int actorMask = 0; actorMask < 1 << KNOWN_ROLES; actorMask++) {
+            for (int target = 0; target < ROLE_INDEXES; target++) {
+                for (int assigned = 0; assigned < ROLE_INDEXES; assigned++) {
+                    DECISIONS[index(actorMask, target, assigned)] = evaluate(actorMask, target, assigned);
+                }
+            }
+        }
+    }
+
+    /**
+     * Looks up whether an actor with the given authorities may change a user with role `targetRole`
+     * to role `assignedRole`.
+     */
+    public static Decision decide(AuthoritySet actor, Role targetRole, Role assignedRole) {
+        return DECISIONS[index(actor.roleMask(), roleIndex(targetRole), roleIndex(assignedRole))];
+    }
 
-    public UserUpdatePermissionEvaluator(UserService userService) {
-        this.userService = userService;
+    /**
+     * Fails fast for actors who may not update any user, before the target is loaded.
+     *
+     * @throws AccessDeniedException if the actor is neither a moderator nor an admin.
+     */
+    public static void checkMayUpdateUsers(AuthoritySet actor) {
+        if (!actor.hasRole(KnownRole.ADMIN) && !actor.hasRole(KnownRole.MODERATOR)) {
+            throw new AccessDeniedException("Insufficient permission to perform this operation.");
+        }
+    }
+
+    /**
+     * Checks an update and throws the exception that matches the broken rule.
+     */
+    public static void checkUpdate(AuthoritySet actor, Role targetRole, Role assignedRole) {
+        switch (decide(actor, targetRole, assignedRole)) {
+            case ALLOW -> {
+            }
+            case DENY -> throw new AccessDeniedException("Insufficient permission to perform this operation.");
+            case ADMIN_TARGET_FORBIDDEN -> throw new AdminUpdateForbiddenException();
+            case ADMIN_ASSIGNMENT_FORBIDDEN ->
+                    throw new AdminRoleAssignmentException();
+        }
     }
 
     /**
      * Main permission check for user update operations.
      *
      * @param authentication       the authentication of the current user
-     * @param targetDomainObject   the ID of the user to update
+     * @param targetDomainObject   the loaded user to update
      * @param permission           the new user data being submitted (updatedUser)
      * @return true if permission is granted, false otherwise (exception thrown)
      */
     @Override
     public boolean hasPermission(Authentication authentication, Object targetDomainObject, Object permission) {
-        Collection<? extends GrantedAuthority> authorities = authentication.getAuthorities();
-
-        Long presentUserId = (Long) targetDomainObject;
-        User presentUser = userService.findUserById(presentUserId);
+        User presentUser = (User) targetDomainObject;
         User updatedUser = (User) permission;
-
-
-        boolean isCurrentUserAdmin = authorities.stream()
-                .anyMatch(authority -> authority.getAuthority().equals("ROLE_ADMIN"));
-
-        boolean isCurrentUserModerator = authorities.stream()
-                .anyMatch(authority -> authority.getAuthority().equals("ROLE_MODERATOR"));
-
-        boolean isTargetUserAdmin = presentUser.getRole().getName().equals("ROLE_ADMIN");
-        boolean isAssignedRoleAdmin = updatedUser.getRole().getName().equals("ROLE_ADMIN");
-
-        // Allow only moderators and admins to proceed
-        if (isCurrentUserAdmin || isCurrentUserModerator) {
-            // Case 1: Updating another ADMIN
-            if (isTargetUserAdmin) {
-                if (isCurrentUserAdmin) {
-                    return true;
-                } else {
-                    throw new AdminUpdateForbiddenException("Only admins can update other admins.");
-                }
-            }
-
-            // Case 2: Assigning ADMIN role
-            if (isAssignedRoleAdmin) {
-                if (isCurrentUserAdmin) {
-                    return true;
-                } else {
-                    throw new AdminRoleAssignmentException("Only admins can assign the ADMIN role.");
-                }
-            }
-
-            // Case 3: Regular update
-            return true;
-        }
-
-        // If the user is neither a moderator nor an admin, deny access
-        throw new AccessDeniedException("Insufficient permission to perform this operation.");
+        checkUpdate(RoleAuthorities.of(authentication.getAuthorities()), presentUser.getRole(), updatedUser.getRole());
+        return true;
     }
 
     /**
@@ -88,4 +109,35 @@ public class UserUpdatePermissionEvaluator implements PermissionEvaluator {
     public boolean hasPermission(Authentication authentication, Serializable targetId, String targetType, Object permission) {
         return false;
     }
+
+    // The rules themselves, only run to fill the table
+    private static Decision evaluate(int actorMask, int targetRole, int assignedRole) {
+        boolean isCurrentUserAdmin = (actorMask & KnownRole.ADMIN.bit()) != 0;
+        boolean isCurrentUserModerator = (actorMask & KnownRole.MODERATOR.bit()) != 0;
+
+        // Allow only moderators and admins to proceed
+        if (!isCurrentUserAdmin && !isCurrentUserModerator) {
+            return Decision.DENY;
+        }
+        if (isCurrentUserAdmin) {
+            return Decision.ALLOW;
+        }
+        // Moderators may neither update other admins nor assign the ADMIN role
+        if (targetRole == KnownRole.ADMIN.ordinal()) {
+            return Decision.ADMIN_TARGET_FORBIDDEN;
+        }
+        if (assignedRole == KnownRole.ADMIN.ordinal()) {
+            return Decision.ADMIN_ASSIGNMENT_FORBIDDEN;
+        }
+        return Decision.ALLOW;
+    }
+
+    private static int index(int actorMask, int targetRole, int assignedRole) {
+        return (actorMask * ROLE_INDEXES + targetRole) * ROLE_INDEXES + assignedRole;
+    }
+
+    private static int roleIndex(Role role) {
+        KnownRole knownRole = role == null ? null : KnownRole.fromAuthority(role.getName());
+        return knownRole == null ? OTHER_ROLE : knownRole.ordinal();
+    }
 }
@@ -0,0 +1,76 @@
+package com.github.treladev.security.jwt;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, thread-safe Bloom filter over strings.
+ *
+ * - Reads and writes are lock-free; bits are only ever set, never cleared.
+ * - {@link #mightContain(String)} never returns false for an added key,
+ *   but may return true for a key that was never added.
+ * - Expired keys are dropped by building a new filter, see {@link TokenRevocationStore}.
+ */
+final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashFunctions;
+
+    BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        int insertions = Math.max(1, expectedInsertions);
+        // Optimal sizing: m = -n * ln(p) / ln(2)^2 bits and k = m / n * ln(2) hash functions
+        long bits = (long) Math.ceil(-insertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, (bits + Long.SIZE - 1) / Long.SIZE);
+        this.words = new AtomicLongArray(words);
+        this.bitCount = (long) words * Long.SIZE;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / insertions * Math.log(2)));
+    }
+
+    void put(String key) {
+        long hash1 = hash(key);
+        long hash2 = mix(hash1);
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = index(hash1, hash2, i);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    boolean mightContain(String key) {
+        long hash1 = hash(key);
+        long hash2 = mix(hash1);
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = index(hash1, hash2, i);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Kirsch-Mitzenmacher: k indexes derived from two independent hashes
+    private long index(long hash1, long hash2, int i) {
+        return Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+    }
+
+    // 64-bit FNV-1a over the UTF-16 code units of the key
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // SplitMix64 finalizer, spreads the bits of a hash over the whole word
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+}
@@ -1,41 +1,103 @@
 package com.github.treladev.security.jwt;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.github.treladev.dto.LoginRequestDto;
-
+import com.github.treladev.exception.PasswordHashingUnavailableException;
+import com.github.treladev.exception.ProblemType;
+import com.github.treladev.security.CustomUserDetails;
+import com.github.treladev.security.RoleAuthorities;
+import com.github.treladev.service.RefreshTokenService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Custom authentication filter for handling login requests and generating JWT tokens.
  *
  * - Parses JSON login requests (username & password).
  * - Authenticates users using Spring Security's AuthenticationManager.
- * - On successful authentication, generates a JWT token and adds it to the response header.
+ * - On successful authentication, generates a JWT token and a refresh token and adds them to the response headers.
+ * - Times the phases of a login as `login.phase` (parse, authenticate, tokens) and counts attempts by result
+ *   as `login.attempts`. The user lookup and the password check inside `authenticate` are timed as
+ *   `login.phase{phase=lookup}` and `password.hashing.duration{operation=matches}`.
  */
 @Component
 public class JWTCustomUsernamePasswordAuthenticationFilter extends UsernamePasswordAuthenticationFilter {
 
+    public static final String LOGIN_PHASE_METRIC = "login.phase";
+    public static final String LOGIN_PHASE_PARSE = "parse";
+    public static final String LOGIN_PHASE_AUTHENTICATE = "authenticate";
+    public static final String LOGIN_PHASE_LOOKUP = "lookup";
+    public static final String LOGIN_PHASE_TOKENS = "tokens";
+
+    // Every failed login gets the same problem body, so it is encoded once
+    private static final byte[] INVALID_CREDENTIALS_BODY =
+            ProblemType.INVALID_CREDENTIALS.body(ProblemType.INVALID_CREDENTIALS_DETAIL);
+
+    // Immutable and thread-safe, so every login shares it instead of building a new ObjectMapper
+    private static final ObjectReader LOGIN_REQUEST_READER = new ObjectMapper().readerFor(LoginRequestDto.class);
+
     private final JwtUtil jwtUtil;
+    // Resolved on first use: the service is created after the security filters
+    private final ObjectProvider<RefreshTokenService> refreshTokenService;
+
+    private final Timer parseTimer;
+    private final Timer authenticateTimer;
+    private final Timer tokensTimer;
+    private final Counter successCounter;
+    private final Counter failureCounter;
+    private final Counter unavailableCounter;
 
     public JWTCustomUsernamePasswordAuthenticationFilter(@Lazy AuthenticationManager authenticationManager,
-                                                         JwtUtil jwtUtil) {
+                                                         JwtUtil jwtUtil, ObjectProvider<RefreshTokenService> refreshTokenService,
+                                                         MeterRegistry meterRegistry) {
         this.jwtUtil = jwtUtil;
+        this.refreshTokenService = refreshTokenService;
         this.setAuthenticationManager(authenticationManager);
+        this.parseTimer = phaseTimer(LOGIN_PHASE_PARSE, meterRegistry);
+        this.authenticateTimer = phaseTimer(LOGIN_PHASE_AUTHENTICATE, meterRegistry);
+        this.tokensTimer = phaseTimer(LOGIN_PHASE_TOKENS, meterRegistry);
+        this.successCounter = attemptCounter("success", meterRegistry);
+        this.failureCounter = attemptCounter("failure", meterRegistry);
+        this.unavailableCounter = attemptCounter("unavailable", meterRegistry);
+    }
+
+    /**
+     * Timer of one phase of a login, shared with {@link com.github.treladev.security.CustomUserDetailsService}.
+     */
+    public static Timer phaseTimer(String phase, MeterRegistry meterRegistry) {
+        return Timer.builder(LOGIN_PHASE_METRIC)
+                .description("Time spent in each phase of a username/password login")
+                .tag("phase", phase)
+                .register(meterRegistry);
+    }
+
+    private static Counter attemptCounter(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("login.attempts")
+                .description("Username/password logins by result")
+                .tag("result", result)
+                .register(meterRegistry);
     }
 
     /**
@@ -49,35 +111,47 @@ public class JWTCustomUsernamePasswordAuthenticationFilter extends UsernamePassw
             throw new AuthenticationServiceException("Authentication method not supported: " + request.getMethod());
         }
 
-        ObjectMapper objectMapper = new ObjectMapper();
+        long parseStartedAt = System.nanoTime();
         LoginRequestDto loginRequest;
         try {
-            loginRequest = objectMapper.readValue(request.getInputStream(), LoginRequestDto.class);
+            loginRequest = LOGIN_REQUEST_READER.readValue(request.getInputStream());
         } catch (IOException e) {
             throw new AuthenticationServiceException("Error parsing login request");
+        } finally {
+            parseTimer.record(System.nanoTime() - parseStartedAt, TimeUnit.NANOSECONDS);
         }
 
         String username = (loginRequest.getUsername() != null) ? loginRequest.getUsername().trim() : "";
         String password = (loginRequest.getPassword() != null) ? loginRequest.getPassword().trim() : "";
 
         UsernamePasswordAuthenticationToken authRequest = UsernamePasswordAuthenticationToken.unauthenticated(username, password);
-        return this.getAuthenticationManager().authenticate(authRequest);
+        long authenticateStartedAt = System.nanoTime();
+        try {
+            return this.getAuthenticationManager().authenticate(authRequest);
+        } catch (PasswordHashingUnavailableException e) {
+            throw new AuthenticationServiceException(e.getMessage(), e);
+        } finally {
+            authenticateTimer.record(System.nanoTime() - authenticateStartedAt, TimeUnit.NANOSECONDS);
+        }
     }
 
     /**
-     * Generates a JWT token upon successful authentication and sets it in the response header.
+     * Generates a JWT token and a refresh token upon successful authentication and sets them in the response headers.
      */
     @Override
     protected void successfulAuthentication(HttpServletRequest request, HttpServletResponse response, FilterChain chain,
                                             Authentication authResult) throws IOException, ServletException {
 
-        String username = authResult.getName();
-        String roles = authResult.getAuthorities().stream()
-                .map(grantedAuthority -> grantedAuthority.getAuthority())
-                .collect(Collectors.joining(","));
+        successCounter.increment();
+        CustomUserDetails user = (CustomUserDetails) authResult.getPrincipal();
+        String roles = RoleAuthorities.of(authResult.getAuthorities()).claim();
 
-        String jwtToken = jwtUtil.generateToken(username, roles);
+        long tokensStartedAt = System.nanoTime();
+        String jwtToken = jwtUtil.generateToken(user.getId(), user.getUsername(), roles, user.getTokenVersion());
+        String refreshToken = refreshTokenService.getObject().issue(user.getId());
+        tokensTimer.record(System.nanoTime() - tokensStartedAt, TimeUnit.NANOSECONDS);
         response.setHeader("Authorization", "Bearer " + jwtToken);
+        response.setHeader(RefreshTokenService.REFRESH_TOKEN_HEADER, refreshToken);
         response.setContentType("text/plain");
         response.getWriter().write("JWT token generated successfully! You can find it in the 'Authorization' header.");
         response.getWriter().flush();
@@ -89,10 +163,24 @@ public class JWTCustomUsernamePasswordAuthenticationFilter extends UsernamePassw
     protected void unsuccessfulAuthentication(HttpServletRequest request, HttpServletResponse response,
                                               AuthenticationException failed) throws IOException, ServletException{
 
-        super.unsuccessfulAuthentication(request,response,failed);
+        // The password could not be checked because the hashing pool is saturated, not because it was wrong
+        if (failed.getCause() instanceof PasswordHashingUnavailableException unavailable) {
+            unavailableCounter.increment();
+            SecurityContextHolder.clearContext();
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(PasswordHashingUnavailableException.RETRY_AFTER_SECONDS));
+            response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+            response.getOutputStream().write(unavailable.problemBody());
+            return;
+        }
+
+        failureCounter.increment();
+        // Not super.unsuccessfulAuthentication: its default failure handler sends a 401 error page, which
+        // dispatches to /error and replaces the problem body with an empty 403
+        SecurityContextHolder.clearContext();
         response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
-        response.getWriter().write("Invalid credentials");
+        response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        response.getOutputStream().write(INVALID_CREDENTIALS_BODY);
 
     }
 
@@ -1,56 +1,82 @@
 package com.github.treladev.security.jwt;
 
+import com.github.treladev.security.AuthoritySet;
+import com.github.treladev.security.RoleAuthorities;
+import com.github.treladev.security.jwt.VerifiedTokenCache.CachedToken;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.CredentialsExpiredException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Custom AuthenticationProvider for JWT-based authentication.
  *
- * - Extracts and validates the JWT token.
- * - Retrieves the username and roles from the token.
- * - Converts roles into Spring Security authorities.
+ * - Verifies the JWT token and reads its claims in a single parse, timed as `jwt.verification`.
+ * - Caches the verification result until the token expires, so repeated requests skip verification.
+ * - Rejects revoked tokens and tokens of changed or deleted users on every request, including cache hits,
+ *   with in-memory lookups only.
+ * - Retrieves the username and roles from the verified token.
+ * - Converts roles into shared, precomputed Spring Security authority sets.
  * - Returns an authenticated JwtSpringSecurityToken if valid.
  */
 @Component
 public class JwtAuthenticationProvider implements AuthenticationProvider {
 
     private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenRevocationStore tokenRevocationStore;
+    private final TokenVersionTable tokenVersionTable;
+    private final Timer verificationTimer;
 
-    public JwtAuthenticationProvider(JwtUtil jwtUtil) {
+    public JwtAuthenticationProvider(JwtUtil jwtUtil, VerifiedTokenCache verifiedTokenCache,
+                                     TokenRevocationStore tokenRevocationStore, TokenVersionTable tokenVersionTable,
+                                     MeterRegistry meterRegistry) {
         this.jwtUtil = jwtUtil;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.tokenRevocationStore = tokenRevocationStore;
+        this.tokenVersionTable = tokenVersionTable;
+        this.verificationTimer = Timer.builder("jwt.verification")
+                .description("Time spent verifying the signature and claims of tokens missing from the cache")
+                .register(meterRegistry);
     }
 
     @Override
     public Authentication authenticate(Authentication authentication) throws AuthenticationException {
         String token = (String) authentication.getCredentials();
-        if (jwtUtil.validateToken(token)) {
-            String username = jwtUtil.extractUsername(token);
-            String roles = jwtUtil.extractRoles(token);
-            Collection<? extends GrantedAuthority> authorities = convertStringRolesToAuthorities(roles);
-            return new JwtSpringSecurityToken(username, token, authorities);
+        CachedToken cachedToken = verifiedTokenCache.get(token, this::verify);
+        if (tokenRevocationStore.isRevoked(cachedToken.tokenId())
+                || !tokenVersionTable.isCurrent(cachedToken.userId(), cachedToken.tokenVersion())) {
+            throw new RevokedTokenException("JWT Token has been revoked");
         }
-        throw new AuthenticationException("Invalid JWT Token") {};
+        return new JwtSpringSecurityToken(cachedToken.username(), token, cachedToken.authorities());
     }
 
     /**
-     * Converts a comma-separated roles string into a collection of GrantedAuthority objects.
+     * Verifies a token that is not cached yet and resolves its authorities.
      */
-    private Collection<? extends GrantedAuthority> convertStringRolesToAuthorities(String rolesString) {
-        if (rolesString == null || rolesString.isEmpty()) {
-            return List.of();
+    private CachedToken verify(String token) {
+        VerifiedToken verifiedToken;
+        long startedAt = System.nanoTime();
+        try {
+            verifiedToken = jwtUtil.verifyToken(token);
+        } catch (ExpiredJwtException e) {
+            throw new CredentialsExpiredException("JWT Token has expired", e);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new BadCredentialsException("Invalid JWT Token", e);
+        } finally {
+            verificationTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
         }
-        return Arrays.stream(rolesString.split(","))
-                .map(role -> new SimpleGrantedAuthority(role.trim()))
-                .collect(Collectors.toList());
+        AuthoritySet authorities = RoleAuthorities.forClaim(verifiedToken.roles());
+        return new CachedToken(verifiedToken.tokenId(), verifiedToken.userId(), verifiedToken.username(), authorities,
+                verifiedToken.tokenVersion(), verifiedToken.expiresAt());
     }
 
     @Override
@@ -1,5 +1,8 @@
 package com.github.treladev.security.jwt;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -7,6 +10,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.CredentialsExpiredException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -14,6 +18,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * JWT Filter for intercepting HTTP requests and validating JWT tokens.
@@ -22,23 +27,38 @@ import java.io.IOException;
  * - Extracts and validates the JWT token from the Authorization header.
  * - If valid, sets the authentication in the SecurityContext.
  * - If invalid or missing, responds with a 403 Forbidden status.
+ * - Times each token authentication as `jwt.authentication`, tagged with its result
+ *   (success, invalid, expired or revoked), and counts requests without a token as `jwt.authentication.missing`.
  */
 @Component
 public class JwtFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtFilter.class);
-    private final JwtUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
     private final JwtAuthenticationSuccessHandler jwtAuthenticationSuccessHandler;
     private final JwtAuthenticationFailureHandler jwtAuthenticationFailureHandler;
 
-    public JwtFilter(JwtUtil jwtUtil, AuthenticationManager authenticationManager,
+    // Registered once, so recording a request costs no lookup in the registry
+    private final Timer successTimer;
+    private final Timer invalidTimer;
+    private final Timer expiredTimer;
+    private final Timer revokedTimer;
+    private final Counter missingCounter;
+
+    public JwtFilter(AuthenticationManager authenticationManager,
                      JwtAuthenticationSuccessHandler jwtAuthenticationSuccessHandler,
-                     JwtAuthenticationFailureHandler jwtAuthenticationFailureHandler) {
-        this.jwtUtil = jwtUtil;
+                     JwtAuthenticationFailureHandler jwtAuthenticationFailureHandler,
+                     MeterRegistry meterRegistry) {
         this.authenticationManager = authenticationManager;
         this.jwtAuthenticationSuccessHandler = jwtAuthenticationSuccessHandler;
         this.jwtAuthenticationFailureHandler = jwtAuthenticationFailureHandler;
+        this.successTimer = authenticationTimer("success", meterRegistry);
+        this.invalidTimer = authenticationTimer("invalid", meterRegistry);
+        this.expiredTimer = authenticationTimer("expired", meterRegistry);
+        this.revokedTimer = authenticationTimer("revoked", meterRegistry);
+        this.missingCounter = Counter.builder("jwt.authentication.missing")
+                .description("Requests to protected endpoints without a bearer token")
+                .register(meterRegistry);
     }
 
     /**
@@ -51,8 +71,8 @@ public class JwtFilter extends OncePerRequestFilter {
         String authorizationHeader = request.getHeader("Authorization");
         String path = request.getServletPath();
 
-        // Allow public endpoints (login and register) without JWT authentication
-        if ("/login".equals(path) || "/register".equals(path)) {
+        // Allow public endpoints (login, register and token refresh) without JWT authentication
+        if ("/login".equals(path) || "/register".equals(path) || "/token/refresh".equals(path)) {
             filterChain.doFilter(request, response);
             return;
         }
@@ -61,13 +81,21 @@ public class JwtFilter extends OncePerRequestFilter {
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
             String token = authorizationHeader.substring(7);
             JwtSpringSecurityToken jwtAuthenticationToken = new JwtSpringSecurityToken(null, token, null);
+            long startedAt = System.nanoTime();
+            boolean authenticated = false;
             try {
                 Authentication authenticationResult = authenticationManager.authenticate(jwtAuthenticationToken);
+                successTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                authenticated = true;
                 successfulJwtAuthentication(request, response, filterChain, authenticationResult);
             } catch (AuthenticationException exception) {
+                if (!authenticated) {
+                    failureTimer(exception).record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
                 unsuccessfulJwtAuthentication(request, response, filterChain, exception);
             }
         } else {
+            missingCounter.increment();
             // Reject requests without a valid JWT token
             response.setStatus(HttpServletResponse.SC_FORBIDDEN);
             response.setContentType("text/plain");
@@ -86,7 +114,24 @@ public class JwtFilter extends OncePerRequestFilter {
         SecurityContextHolder.getContext().setAuthentication(successAuthenticationToken);
         jwtAuthenticationSuccessHandler.onAuthenticationSuccess(request, response, successAuthenticationToken);
         filterChain.doFilter(request, response);
-        logger.info("Current context: {}", SecurityContextHolder.getContext().getAuthentication());
+        logger.debug("Current context: {}", SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    private Timer failureTimer(AuthenticationException exception) {
+        if (exception instanceof RevokedTokenException) {
+            return revokedTimer;
+        }
+        if (exception instanceof CredentialsExpiredException) {
+            return expiredTimer;
+        }
+        return invalidTimer;
+    }
+
+    private static Timer authenticationTimer(String result, MeterRegistry meterRegistry) {
+        return Timer.builder("jwt.authentication")
+                .description("Time spent authenticating a request by its bearer token")
+                .tag("result", result)
+                .register(meterRegistry);
     }
 
     /**
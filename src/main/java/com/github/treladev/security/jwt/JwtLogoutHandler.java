@@ -0,0 +1,59 @@
+package com.github.treladev.security.jwt;
+
+import com.github.treladev.service.RefreshTokenService;
+import com.github.treladev.service.TokenRevocationService;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.logout.LogoutHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Revokes the JWT token presented to `/logout` and the refresh tokens of its login.
+ *
+ * - The token stays revoked until it expires, so it cannot be used again after logging out, on any instance.
+ * - The refresh token family of the `Refresh-Token` header is revoked; without the header, all refresh tokens
+ *   of the user are, so the client cannot mint new access tokens through `/token/refresh`.
+ * - Invalid or missing tokens are ignored; logging out is always successful.
+ */
+@Component
+public class JwtLogoutHandler implements LogoutHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtLogoutHandler.class);
+
+    private final JwtUtil jwtUtil;
+    // Resolved on first use: the services are created after the security filters
+    private final ObjectProvider<TokenRevocationService> tokenRevocationService;
+    private final ObjectProvider<RefreshTokenService> refreshTokenService;
+
+    public JwtLogoutHandler(JwtUtil jwtUtil, ObjectProvider<TokenRevocationService> tokenRevocationService,
+                            ObjectProvider<RefreshTokenService> refreshTokenService) {
+        this.jwtUtil = jwtUtil;
+        this.tokenRevocationService = tokenRevocationService;
+        this.refreshTokenService = refreshTokenService;
+    }
+
+    @Override
+    public void logout(HttpServletRequest request, HttpServletResponse response, Authentication authentication) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return;
+        }
+        try {
+            VerifiedToken verifiedToken = jwtUtil.verifyToken(authHeader.substring(7));
+            if (verifiedToken.tokenId() != null) {
+                tokenRevocationService.getObject().revokeToken(verifiedToken.tokenId(), verifiedToken.expiresAt());
+            }
+            if (verifiedToken.userId() != null) {
+                refreshTokenService.getObject().revokeOnLogout(
+                        request.getHeader(RefreshTokenService.REFRESH_TOKEN_HEADER), verifiedToken.userId());
+            }
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.debug("Ignoring invalid token on logout: {}", e.getMessage());
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.github.treladev.security.jwt;
 
+import com.github.treladev.security.AuthoritySet;
+import com.github.treladev.security.RoleAuthorities;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
 
@@ -16,6 +18,7 @@ public class JwtSpringSecurityToken extends AbstractAuthenticationToken {
 
     private final String username;
     private final String token;
+    private final AuthoritySet authorities;
 
     /**
      * Constructs a JWT authentication token.
@@ -25,12 +28,19 @@ public class JwtSpringSecurityToken extends AbstractAuthenticationToken {
      * @param authorities  The user's granted authorities (roles/permissions).
      */
     public JwtSpringSecurityToken(String username, String token, Collection<? extends GrantedAuthority> authorities) {
-        super(authorities);
+        // Authorities are kept as a shared immutable AuthoritySet instead of the per-token copy made by the superclass
+        super(null);
         this.username = username;
         this.token = token;
+        this.authorities = RoleAuthorities.of(authorities);
         setAuthenticated(true); // Mark authentication as successful
     }
 
+    @Override
+    public Collection<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
     /**
      * Returns the JWT token as credentials.
      */
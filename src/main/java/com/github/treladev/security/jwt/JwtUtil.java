@@ -1,60 +1,83 @@
 package com.github.treladev.security.jwt;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.security.Key;
+import javax.crypto.SecretKey;
+import java.time.Duration;
 import java.util.Date;
+import java.util.UUID;
 
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secretKey;
+    private static final String ROLES_CLAIM = "roles";
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String TOKEN_VERSION_CLAIM = "ver";
 
-    private final long expirationTime = 10 * 60 * 1000; //10  minutes
+    // Upper bound for how long any issued token stays valid
+    public static final Duration TOKEN_LIFETIME = Duration.ofMinutes(10);
 
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    // Both are immutable and thread-safe, so they are built once instead of for every token
+    private final SecretKey signingKey;
+    private final JwtParser jwtParser;
+
+    public JwtUtil(@Value("${jwt.secret}") String secretKey) {
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        this.jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
     }
 
-    public String generateToken(String username,String roles) {
+    /**
+     * Issues an access token for the user.
+     *
+     * @param tokenVersion The current token version of the user, see {@link TokenVersionTable}.
+     */
+    public String generateToken(Long userId, String username, String roles, int tokenVersion) {
         return Jwts.builder()
+                .id(UUID.randomUUID().toString()) // Identifies the token for revocation
                 .subject(username)
-                .claim("roles",roles)
+                .claim(USER_ID_CLAIM, userId)
+                .claim(ROLES_CLAIM,roles)
+                .claim(TOKEN_VERSION_CLAIM, tokenVersion)
                 .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + expirationTime))
-                .signWith(getSigningKey())
+                .expiration(new Date(System.currentTimeMillis() + TOKEN_LIFETIME.toMillis()))
+                .signWith(signingKey)
                 .compact();
     }
 
-    private Claims getClaims(String token) {
-        return Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getPayload();
-    }
-
-    public boolean validateToken(String token) {
-        try {
-            Claims claims = getClaims(token);
-            return !claims.getExpiration().before(new Date());
-        } catch (Exception e) {
-            return false;
+    /**
+     * Verifies the token signature and expiration and reads all claims in a single parse.
+     *
+     * @param token The compact JWT string.
+     * @return The verified claims of the token.
+     * @throws JwtException if the token is malformed, has an invalid signature, is expired
+     *                      or has no user ID and token version.
+     * @throws IllegalArgumentException if the token is null or blank.
+     */
+    public VerifiedToken verifyToken(String token) {
+        Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+        Long userId = claims.get(USER_ID_CLAIM, Long.class);
+        Integer tokenVersion = claims.get(TOKEN_VERSION_CLAIM, Integer.class);
+        // Tokens issued before token versions cannot be checked against later changes of their user
+        if (userId == null || tokenVersion == null) {
+            throw new MalformedJwtException("JWT token has no user ID or token version");
         }
+        return new VerifiedToken(
+                claims.getId(),
+                userId,
+                claims.getSubject(),
+                claims.get(ROLES_CLAIM, String.class),
+                tokenVersion,
+                claims.getIssuedAt().toInstant(),
+                claims.getExpiration().toInstant());
     }
-
-    public String extractUsername(String token) {
-        return getClaims(token).getSubject();
-    }
-
-    public String extractRoles(String token){
-        return getClaims(token).get("roles",String.class);
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,12 @@
+package com.github.treladev.security.jwt;
+
+import org.springframework.security.authentication.BadCredentialsException;
+
+/**
+ * Thrown for a valid token that was revoked on logout or belongs to a user changed since it was issued.
+ */
+public class RevokedTokenException extends BadCredentialsException {
+    public RevokedTokenException(String message) {
+        super(message);
+    }
+}
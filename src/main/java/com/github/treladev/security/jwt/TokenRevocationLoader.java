@@ -0,0 +1,95 @@
+package com.github.treladev.security.jwt;
+
+import com.github.treladev.model.RevokedToken;
+import com.github.treladev.repository.RevokedTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Fills the {@link TokenRevocationStore} from the `revoked_tokens` table.
+ *
+ * - At startup, every revocation whose token has not expired is loaded, so a logout survives a restart.
+ *   Runs as a lifecycle bean started before the web server, so no request is checked against an empty store.
+ * - Afterwards, the revocations made since the last sync are read every `jwt.sync-interval`, so a logout on
+ *   another instance holds here within that interval.
+ * - A context that exits on refresh (the class-data sharing training run) stops before, without a database.
+ */
+@Component
+public class TokenRevocationLoader implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationLoader.class);
+
+    // Reads rows again whose transaction committed after the previous sync, or whose clock was behind
+    static final Duration SYNC_OVERLAP = Duration.ofSeconds(30);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final TokenRevocationStore tokenRevocationStore;
+    private volatile Instant lastSync;
+    private volatile boolean running;
+
+    public TokenRevocationLoader(RevokedTokenRepository revokedTokenRepository,
+                                 TokenRevocationStore tokenRevocationStore) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.tokenRevocationStore = tokenRevocationStore;
+    }
+
+    @Override
+    public void start() {
+        load();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // The web server starts in a late phase (Integer.MAX_VALUE - 2048)
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    /**
+     * Caches every revocation whose token has not expired yet.
+     *
+     * @return The number of revocations loaded.
+     */
+    public int load() {
+        int loaded = readRevokedSince(Instant.EPOCH);
+        logger.info("Loaded {} token revocations", loaded);
+        return loaded;
+    }
+
+    /**
+     * Caches the revocations made since the last sync, including the ones made by other instances.
+     */
+    @Scheduled(fixedDelayString = "${jwt.sync-interval:PT5S}", initialDelayString = "${jwt.sync-interval:PT5S}")
+    public void sync() {
+        if (!running) {
+            return;
+        }
+        int read = readRevokedSince(lastSync.minus(SYNC_OVERLAP));
+        logger.debug("Synced {} token revocations", read);
+    }
+
+    private int readRevokedSince(Instant since) {
+        Instant now = Instant.now();
+        List<RevokedToken> revokedTokens = revokedTokenRepository.findRevokedSince(since, now);
+        revokedTokens.forEach(token -> tokenRevocationStore.revokeToken(token.getTokenId(), token.getExpiresAt()));
+        lastSync = now;
+        return revokedTokens.size();
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.treladev.security.jwt;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory denylist of revoked JWT tokens.
+ *
+ * - A read cache of the `revoked_tokens` table: tokens are revoked through the
+ *   {@link com.github.treladev.service.TokenRevocationService} and loaded by the {@link TokenRevocationLoader}.
+ * - A single token is revoked by its `jti` claim, e.g. on logout.
+ * - All tokens of a user are rejected through the user's token version instead, see {@link TokenVersionTable}.
+ * - Every request first probes a lock-free Bloom filter; the exact maps are only read on a possible hit,
+ *   so the common case of a token that was never revoked touches no lock and no database.
+ * - Entries are purged once every token they can match has expired on its own.
+ */
+@Component
+public class TokenRevocationStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationStore.class);
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final int expectedRevocations;
+
+    // Token ID -> expiration of the revoked token
+    private final Map<String, Instant> revokedTokens = new ConcurrentHashMap<>();
+
+    // Replaced as a whole when expired entries are purged, since bits cannot be removed
+    private volatile BloomFilter filter;
+
+    public TokenRevocationStore(@Value("${jwt.revocation.expected-revocations:10000}") int expectedRevocations) {
+        this.expectedRevocations = expectedRevocations;
+        this.filter = new BloomFilter(expectedRevocations, FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * Revokes a single token until it expires.
+     */
+    public synchronized void revokeToken(String tokenId, Instant expiresAt) {
+        revokedTokens.merge(tokenId, expiresAt, (current, added) -> current.isAfter(added) ? current : added);
+        filter.put(tokenId);
+    }
+
+    /**
+     * Checks whether a verified token has been revoked.
+     *
+     * @param tokenId  The `jti` claim of the token, may be null.
+     */
+    public boolean isRevoked(String tokenId) {
+        return tokenId != null && filter.mightContain(tokenId) && revokedTokens.containsKey(tokenId);
+    }
+
+    /**
+     * Drops entries that can no longer match a valid token and rebuilds the Bloom filter from the rest.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval:PT1M}")
+    public synchronized void purgeExpired() {
+        Instant now = Instant.now();
+        int sizeBefore = size();
+        revokedTokens.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedRevocations, 2 * size()), FALSE_POSITIVE_RATE);
+        revokedTokens.keySet().forEach(rebuilt::put);
+        filter = rebuilt;
+        logger.debug("Purged {} expired token revocations, {} remaining", sizeBefore - size(), size());
+    }
+
+    public int size() {
+        return revokedTokens.size();
+    }
+}
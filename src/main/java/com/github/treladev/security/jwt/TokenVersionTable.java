@@ -0,0 +1,79 @@
+package com.github.treladev.security.jwt;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory table of the lowest token version still accepted for recently changed users.
+ *
+ * - Access tokens carry the user ID (`uid`) and the user's token version (`ver`) from the time they were issued.
+ * - Updating, disabling or deleting users raises their entry here once the transaction that writes the
+ *   new version (users.token_version) to the database has committed, so a rollback rejects no token.
+ * - Checking a token is one map lookup; users without an entry accept every version, so the table only
+ *   holds users changed within the last token lifetime.
+ * - Entries are purged once every token they can reject has expired on its own.
+ *
+ * The table lives in the memory of each instance; {@link TokenVersionTableLoader} fills it with the changes
+ * made before the instance started and, every `jwt.sync-interval`, with the ones made by other instances.
+ */
+@Component
+public class TokenVersionTable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenVersionTable.class);
+
+    // Rejects every version, for deleted users
+    private static final int DELETED = Integer.MAX_VALUE;
+
+    // User ID -> lowest accepted version and when it was last raised
+    private final Map<Long, MinimumVersion> minimumVersions = new ConcurrentHashMap<>();
+
+    /**
+     * Accepts only tokens with at least the given version for the user from now on.
+     * Never lowers a version that was raised before.
+     */
+    public void raise(Long userId, int minimumVersion) {
+        MinimumVersion raised = new MinimumVersion(minimumVersion, System.currentTimeMillis());
+        minimumVersions.merge(userId, raised, (current, added) ->
+                current.version() > added.version() ? new MinimumVersion(current.version(), added.raisedAt()) : added);
+    }
+
+    /**
+     * Rejects every token of a deleted user.
+     */
+    public void delete(Long userId) {
+        raise(userId, DELETED);
+    }
+
+    /**
+     * Checks whether a token or a loaded user with the given version is still current.
+     */
+    public boolean isCurrent(Long userId, int version) {
+        MinimumVersion minimumVersion = minimumVersions.get(userId);
+        return minimumVersion == null || version >= minimumVersion.version();
+    }
+
+    /**
+     * Drops entries that can no longer reject a valid token.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval:PT1M}")
+    public void purgeExpired() {
+        // Tokens with an older version were issued before the last raise and expire within one token lifetime
+        // (plus the second lost by truncating `iat`)
+        long oldestRelevantRaise = System.currentTimeMillis() - JwtUtil.TOKEN_LIFETIME.toMillis() - 1000;
+        int sizeBefore = size();
+        minimumVersions.values().removeIf(minimumVersion -> minimumVersion.raisedAt() < oldestRelevantRaise);
+        logger.debug("Purged {} token versions, {} remaining", sizeBefore - size(), size());
+    }
+
+    public int size() {
+        return minimumVersions.size();
+    }
+
+    private record MinimumVersion(int version, long raisedAt) {
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.treladev.security.jwt;
+
+import com.github.treladev.repository.UserRepository;
+import com.github.treladev.repository.UserTokenVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills the {@link TokenVersionTable} with the changes made before this instance started or by other instances.
+ *
+ * - Tokens issued before a restart, or by another instance, can still carry a version that was raised since.
+ *   They expire within one token lifetime, so at startup only the users raised (users.token_version_raised_at)
+ *   or deleted (deleted_users) within that time are read back.
+ * - Afterwards, the users raised or deleted since the last sync are read every `jwt.sync-interval`, so a change
+ *   made on another instance rejects the old tokens here within that interval.
+ * - The same users are evicted from the second-level cache of this instance, which is not shared between
+ *   instances. Enabling users stamps users.token_version_raised_at as well, without raising the version.
+ *   Each change is read again by the syncs within {@link TokenRevocationLoader#SYNC_OVERLAP}, which also evicts
+ *   a copy cached here by a read that raced with the first eviction.
+ * - Runs as a lifecycle bean started before the web server, so no request is checked against an empty table.
+ *   A context that exits on refresh (the class-data sharing training run) stops before, without a database.
+ */
+@Component
+public class TokenVersionTableLoader implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenVersionTableLoader.class);
+
+    private final UserRepository userRepository;
+    private final TokenVersionTable tokenVersionTable;
+    private volatile Instant lastSync;
+    private volatile boolean running;
+
+    public TokenVersionTableLoader(UserRepository userRepository, TokenVersionTable tokenVersionTable) {
+        this.userRepository = userRepository;
+        this.tokenVersionTable = tokenVersionTable;
+    }
+
+    @Override
+    public void start() {
+        load();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // The web server starts in a late phase (Integer.MAX_VALUE - 2048)
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    /**
+     * Applies the token versions raised and the users deleted within the last token lifetime
+     * (plus the second lost by truncating `iat`).
+     *
+     * @return The number of users loaded.
+     */
+    public int load() {
+        int loaded = readChangedSince(Instant.now().minus(JwtUtil.TOKEN_LIFETIME).minusSeconds(1));
+        logger.info("Loaded the token versions of {} recently changed users", loaded);
+        return loaded;
+    }
+
+    /**
+     * Applies the token versions raised and the users deleted since the last sync, including by other instances.
+     */
+    @Scheduled(fixedDelayString = "${jwt.sync-interval:PT5S}", initialDelayString = "${jwt.sync-interval:PT5S}")
+    public void sync() {
+        if (!running) {
+            return;
+        }
+        int read = readChangedSince(lastSync.minus(TokenRevocationLoader.SYNC_OVERLAP));
+        logger.debug("Synced the token versions of {} changed users", read);
+    }
+
+    private int readChangedSince(Instant since) {
+        Instant now = Instant.now();
+        List<UserTokenVersion> versions = userRepository.findTokenVersionsRaisedSince(since);
+        versions.forEach(version -> tokenVersionTable.raise(version.id(), version.tokenVersion()));
+        List<Long> deletedIds = userRepository.findIdsDeletedSince(since);
+        deletedIds.forEach(tokenVersionTable::delete);
+        List<Long> changedIds = new ArrayList<>(deletedIds);
+        versions.forEach(version -> changedIds.add(version.id()));
+        userRepository.evictFromCache(changedIds);
+        lastSync = now;
+        return changedIds.size();
+    }
+}
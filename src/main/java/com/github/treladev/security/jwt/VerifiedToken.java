@@ -0,0 +1,21 @@
+package com.github.treladev.security.jwt;
+
+import java.time.Instant;
+
+/**
+ * Immutable result of a successful JWT verification.
+ *
+ * - Produced once per token by {@link JwtUtil#verifyToken(String)}.
+ * - Holds every claim needed to build the authentication, so the token is never parsed twice.
+ *
+ * @param tokenId      The `jti` claim identifying the token, or null for tokens issued without one.
+ * @param userId       The `uid` claim, the ID of the user the token was issued to.
+ * @param username     The subject of the token.
+ * @param roles        The comma-separated roles claim.
+ * @param tokenVersion The `ver` claim, the token version of the user when the token was issued.
+ * @param issuedAt     The issue time of the token.
+ * @param expiresAt    The expiration time of the token.
+ */
+public record VerifiedToken(String tokenId, Long userId, String username, String roles, int tokenVersion,
+                            Instant issuedAt, Instant expiresAt) {
+}
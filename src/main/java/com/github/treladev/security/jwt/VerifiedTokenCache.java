@@ -0,0 +1,104 @@
+package com.github.treladev.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.treladev.security.AuthoritySet;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of already verified JWT tokens.
+ *
+ * - Keyed by the SHA-256 digest of the token, so raw bearer tokens are never kept in memory.
+ * - Each entry expires exactly when the token's `exp` claim passes.
+ * - Size-bounded with Caffeine's W-TinyLFU eviction policy; hit/miss statistics are published as
+ *   `cache.gets{cache=verified-tokens}` and related cache metrics.
+ */
+@Component
+public class VerifiedTokenCache implements MeterBinder {
+
+    private final Cache<ByteBuffer, CachedToken> cache;
+
+    public VerifiedTokenCache(@Value("${jwt.cache.maximum-size:10000}") long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached verification result for the token, verifying it with the loader on a miss.
+     * Exceptions thrown by the loader are propagated and nothing is cached for the token.
+     */
+    public CachedToken get(String token, Function<String, CachedToken> loader) {
+        return cache.get(digest(token), key -> loader.apply(token));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "verified-tokens");
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static ByteBuffer digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Verified principal and authorities of a token, shared by every request that presents it.
+     */
+    public record CachedToken(String tokenId, Long userId, String username, AuthoritySet authorities,
+                              int tokenVersion, Instant expiresAt) {
+    }
+
+    /**
+     * Expires every entry at the expiration time of its own token.
+     */
+    private static final class TokenExpiry implements Expiry<ByteBuffer, CachedToken> {
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, CachedToken value, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, CachedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, CachedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.github.treladev.service;
+
+import com.github.treladev.exception.InvalidRefreshTokenException;
+import com.github.treladev.model.RefreshToken;
+import com.github.treladev.model.User;
+import com.github.treladev.repository.RefreshTokenRepository;
+import com.github.treladev.repository.UserRepository;
+import com.github.treladev.security.RoleAuthorities;
+import com.github.treladev.security.jwt.JwtUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Issues and rotates opaque refresh tokens.
+ *
+ * - A refresh costs one indexed lookup and one HMAC signature instead of a BCrypt verification.
+ * - Every refresh token can be used once; using it returns a new refresh token from the same family.
+ * - Presenting an already used token revokes the whole family, since it may have been stolen.
+ *   A token is claimed with a conditional update, so of two concurrent refreshes with the same token one fails.
+ * - Expired tokens are deleted periodically.
+ */
+@Service
+public class RefreshTokenService {
+
+    public static final String REFRESH_TOKEN_HEADER = "Refresh-Token";
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final JwtUtil jwtUtil;
+    private final Duration refreshExpiration;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, UserRepository userRepository,
+                               JwtUtil jwtUtil, @Value("${jwt.refresh-expiration:14d}") Duration refreshExpiration) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.jwtUtil = jwtUtil;
+        this.refreshExpiration = refreshExpiration;
+    }
+
+    /**
+     * Issues the first refresh token of a new family after a successful login.
+     *
+     * @param userId The ID of the authenticated user.
+     * @return The opaque refresh token to hand to the client.
+     */
+    @Transactional
+    public String issue(Long userId) {
+        // A reference is enough to store the foreign key, the user was just loaded by the login
+        User user = userRepository.getReferenceById(userId);
+        return createToken(UUID.randomUUID().toString(), user);
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and a new refresh token.
+     *
+     * @param rawToken The refresh token presented by the client.
+     * @return The new access token and refresh token.
+     * @throws InvalidRefreshTokenException if the token is unknown, expired, revoked or already used.
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public TokenPair rotate(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            throw new InvalidRefreshTokenException(InvalidRefreshTokenException.REQUIRED);
+        }
+        RefreshToken presentToken = refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .orElseThrow(() -> new InvalidRefreshTokenException(InvalidRefreshTokenException.UNKNOWN));
+
+        if (presentToken.isUsed() || presentToken.isRevoked()) {
+            refreshTokenRepository.revokeFamily(presentToken.getFamilyId());
+            throw new InvalidRefreshTokenException(InvalidRefreshTokenException.ALREADY_USED);
+        }
+        if (presentToken.isExpired(Instant.now())) {
+            throw new InvalidRefreshTokenException(InvalidRefreshTokenException.EXPIRED);
+        }
+
+        User user = presentToken.getUser();
+        if (!user.isEnabled() || !user.isAccountNonLocked()) {
+            refreshTokenRepository.revokeFamily(presentToken.getFamilyId());
+            throw new InvalidRefreshTokenException(InvalidRefreshTokenException.ACCOUNT_DISABLED);
+        }
+
+        // Two requests with the same token may both have passed the checks above; only one can claim it
+        if (refreshTokenRepository.claim(presentToken.getId()) == 0) {
+            refreshTokenRepository.revokeFamily(presentToken.getFamilyId());
+            throw new InvalidRefreshTokenException(InvalidRefreshTokenException.ALREADY_USED);
+        }
+        String refreshToken = createToken(presentToken.getFamilyId(), user);
+        String accessToken = jwtUtil.generateToken(user.getId(), user.getUsername(),
+                RoleAuthorities.forClaim(user.getRole().getName()).claim(), user.getTokenVersion());
+        return new TokenPair(accessToken, refreshToken);
+    }
+
+    /**
+     * Revokes the refresh tokens of a login when the user logs out, so they cannot mint new access tokens.
+     *
+     * @param rawToken The refresh token presented with the logout, may be null.
+     * @param userId   The user who logs out. Without a token of theirs, every login of the user is revoked,
+     *                 since the one that is ending cannot be told apart.
+     */
+    @Transactional
+    public void revokeOnLogout(String rawToken, Long userId) {
+        if (rawToken != null && !rawToken.isBlank()) {
+            Optional<RefreshToken> presentToken = refreshTokenRepository.findByTokenHash(hash(rawToken))
+                    .filter(token -> token.getUser().getId().equals(userId));
+            if (presentToken.isPresent()) {
+                refreshTokenRepository.revokeFamily(presentToken.get().getFamilyId());
+                return;
+            }
+        }
+        refreshTokenRepository.revokeAllOfUser(userId);
+    }
+
+    /**
+     * Deletes expired tokens. Used tokens are kept until they expire, so a replayed one is still recognized
+     * and revokes its family.
+     */
+    @Scheduled(fixedDelayString = "${jwt.refresh-purge-interval:PT1H}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(Instant.now());
+        logger.debug("Purged {} expired refresh tokens", deleted);
+    }
+
+    private String createToken(String familyId, User user) {
+        byte[] tokenBytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(tokenBytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBytes);
+        refreshTokenRepository.save(new RefreshToken(hash(rawToken), familyId, user,
+                Instant.now().plus(refreshExpiration)));
+        return rawToken;
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(rawToken.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Access token and refresh token returned by a successful refresh.
+     */
+    public record TokenPair(String accessToken, String refreshToken) {
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.treladev.service;
+
+import com.github.treladev.model.Role;
+import com.github.treladev.repository.RoleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory registry of all roles.
+ *
+ * - The roles table is tiny and almost never changes, so it is read once at startup
+ *   instead of on every registration and update.
+ * - Lookups by name and by ID are plain map reads returning shared Role references.
+ * - {@link #reload()} swaps in a fresh snapshot after roles were added or changed;
+ *   readers always see either the old or the new snapshot, never a mix.
+ */
+@Service
+public class RoleRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoleRegistry.class);
+
+    private final RoleRepository roleRepository;
+
+    // Immutable snapshot, replaced as a whole on reload
+    private volatile Roles roles;
+
+    public RoleRegistry(RoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+    }
+
+    /**
+     * Reads all roles from the database and replaces the current snapshot.
+     *
+     * @return The number of roles loaded.
+     */
+    public synchronized int reload() {
+        List<Role> allRoles = roleRepository.findAll();
+        Map<String, Role> byName = new HashMap<>();
+        Map<Long, Role> byId = new HashMap<>();
+        for (Role role : allRoles) {
+            byName.put(role.getName(), role);
+            byId.put(role.getId(), role);
+        }
+        roles = new Roles(Map.copyOf(byName), Map.copyOf(byId));
+        logger.info("Loaded {} roles", allRoles.size());
+        return allRoles.size();
+    }
+
+    public Optional<Role> findByName(String name) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(snapshot().byName().get(name));
+    }
+
+    public Optional<Role> findById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(snapshot().byId().get(id));
+    }
+
+    // Loads on first use if a lookup happens before the application is ready
+    private Roles snapshot() {
+        Roles current = roles;
+        if (current == null) {
+            reload();
+            current = roles;
+        }
+        return current;
+    }
+
+    private record Roles(Map<String, Role> byName, Map<Long, Role> byId) {
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.treladev.service;
+
+import com.github.treladev.model.RevokedToken;
+import com.github.treladev.repository.RevokedTokenRepository;
+import com.github.treladev.security.jwt.TokenRevocationStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Revokes single access tokens, e.g. on logout.
+ *
+ * - The revocation is stored in the database, which is the source of truth; the {@link TokenRevocationStore}
+ *   of each instance is only a read cache of it, filled by the {@link com.github.treladev.security.jwt.TokenRevocationLoader}.
+ * - The instance that revokes the token also caches it right away, so it is rejected there from the next request on.
+ * - Rows are deleted periodically once their token has expired.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final TokenRevocationStore tokenRevocationStore;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  TokenRevocationStore tokenRevocationStore) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.tokenRevocationStore = tokenRevocationStore;
+    }
+
+    /**
+     * Revokes a single token until it expires.
+     *
+     * @param tokenId   The `jti` claim of the token.
+     * @param expiresAt The expiration of the token.
+     */
+    @Transactional
+    public void revokeToken(String tokenId, Instant expiresAt) {
+        // Revoking the same token twice, e.g. a repeated logout, merges into the existing row
+        revokedTokenRepository.save(new RevokedToken(tokenId, expiresAt, Instant.now()));
+        tokenRevocationStore.revokeToken(tokenId, expiresAt);
+    }
+
+    /**
+     * Deletes the revocations of expired tokens. The cache of each instance purges its own entries.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.table-purge-interval:PT1H}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = revokedTokenRepository.deleteExpired(Instant.now());
+        logger.debug("Purged {} expired token revocations from the database", deleted);
+    }
+}
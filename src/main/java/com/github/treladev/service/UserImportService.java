@@ -0,0 +1,350 @@
+package com.github.treladev.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.treladev.dto.UserImportReport;
+import com.github.treladev.dto.UserImportReport.RowError;
+import com.github.treladev.dto.UserImportRowDto;
+import com.github.treladev.exception.PasswordHashingUnavailableException;
+import com.github.treladev.model.Role;
+import com.github.treladev.model.User;
+import com.github.treladev.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates users in bulk from a streamed NDJSON or CSV body.
+ *
+ * - The body is read line by line and stored in chunks of `user-import.chunk-size` rows, one transaction each.
+ *   The next chunk is only read once the previous one is stored, so memory use does not grow with the upload
+ *   and a slow database slows down the client instead of buffering the body.
+ * - Per chunk, one query finds the usernames already taken, the passwords are hashed concurrently and the
+ *   users are inserted in JDBC batches.
+ * - Hashing goes through the bounded password encoder with at most `user-import.hashing-concurrency` hashes
+ *   in flight, so logins keep getting hashing threads during an import.
+ * - When the encoder sheds work because it is saturated, e.g. by a login storm, the import backs off and retries
+ *   for up to `user-import.hashing-max-wait` per row. If there is still no capacity, the import stops with
+ *   {@link PasswordHashingUnavailableException} (503 with Retry-After); the chunks stored until then stay stored.
+ * - Invalid rows do not stop the import; each one is reported with its line number.
+ */
+@Service
+public class UserImportService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserImportService.class);
+
+    static final String DEFAULT_ROLE = "ROLE_USER";
+    // users.username is VARCHAR(255)
+    static final int MAX_USERNAME_LENGTH = 255;
+
+    private static final long MIN_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final UserRepository userRepository;
+    private final RoleRegistry roleRegistry;
+    private final PasswordEncoder passwordEncoder;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final long hashingMaxWaitNanos;
+    private final ExecutorService hashingExecutor;
+
+    public UserImportService(UserRepository userRepository, RoleRegistry roleRegistry, PasswordEncoder passwordEncoder,
+                             ObjectMapper objectMapper,
+                             @Value("${user-import.chunk-size:1000}") int chunkSize,
+                             @Value("${user-import.hashing-concurrency:0}") int hashingConcurrency,
+                             @Value("${user-import.hashing-max-wait:1m}") Duration hashingMaxWait) {
+        this.userRepository = userRepository;
+        this.roleRegistry = roleRegistry;
+        this.passwordEncoder = passwordEncoder;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.hashingMaxWaitNanos = hashingMaxWait.toNanos();
+        int concurrency = hashingConcurrency > 0 ? hashingConcurrency : Runtime.getRuntime().availableProcessors();
+        this.hashingExecutor = Executors.newFixedThreadPool(concurrency,
+                new CustomizableThreadFactory("user-import-hashing-"));
+    }
+
+    /**
+     * Imports one user per line, e.g. {"username":"alice","password":"secret","role":"ROLE_MODERATOR"}.
+     */
+    public UserImportReport importNdjson(InputStream body) throws IOException {
+        return importLines(body, this::parseJsonLine);
+    }
+
+    /**
+     * Imports one user per line as `username,password[,role]`, with an optional header line.
+     * Fields containing commas or quotes can be quoted, with embedded quotes doubled.
+     */
+    public UserImportReport importCsv(InputStream body) throws IOException {
+        return importLines(body, this::parseCsvLine);
+    }
+
+    private UserImportReport importLines(InputStream body, LineParser parser) throws IOException {
+        long startedAt = System.nanoTime();
+        ImportState state = new ImportState();
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                UserImportRowDto row;
+                try {
+                    row = parser.parse(line);
+                } catch (IllegalArgumentException e) {
+                    state.reject(lineNumber, null, e.getMessage());
+                    continue;
+                }
+                if (row == null) {
+                    continue;
+                }
+                chunk.add(new ImportRow(lineNumber, row));
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, state);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, state);
+        }
+        logger.info("Imported {} users, rejected {} rows in {} ms", state.imported, state.errors.size(),
+                (System.nanoTime() - startedAt) / 1_000_000);
+        return state.report();
+    }
+
+    private void importChunk(List<ImportRow> rows, ImportState state) {
+        // Rows that are valid on their own and not repeated earlier in the import
+        List<ValidRow> candidates = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            String username = User.normalizeUsername(row.dto().username() == null ? null : row.dto().username().strip());
+            String error = validate(username, row.dto());
+            if (error == null && !state.seenUsernames.add(username)) {
+                error = "Duplicate username in this import.";
+            }
+            if (error != null) {
+                state.reject(row.line(), username, error);
+                continue;
+            }
+            candidates.add(new ValidRow(row.line(), username, row.dto().password(), resolveRole(row.dto().role())));
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        Set<String> taken = new HashSet<>(userRepository.findExistingUsernames(
+                candidates.stream().map(ValidRow::username).toList()));
+
+        List<CompletableFuture<User>> hashing = new ArrayList<>(candidates.size());
+        for (ValidRow row : candidates) {
+            hashing.add(taken.contains(row.username()) ? null : CompletableFuture.supplyAsync(
+                    () -> new User(row.username(), encodeWhenCapacity(row.password()), row.role()),
+                    hashingExecutor));
+        }
+
+        List<ValidRow> pendingRows = new ArrayList<>(candidates.size());
+        List<User> pendingUsers = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            ValidRow row = candidates.get(i);
+            if (hashing.get(i) == null) {
+                state.reject(row.line(), row.username(), usernameInUse(row.username()));
+                continue;
+            }
+            try {
+                pendingUsers.add(hashing.get(i).join());
+                pendingRows.add(row);
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof PasswordHashingUnavailableException unavailable) {
+                    // Hashes that have not started yet are skipped
+                    hashing.forEach(future -> {
+                        if (future != null) {
+                            future.cancel(false);
+                        }
+                    });
+                    logger.warn("Stopped the import at line {}, password hashing stayed unavailable: imported {} users,"
+                            + " rejected {} rows", row.line(), state.imported, state.errors.size());
+                    throw new PasswordHashingUnavailableException(PasswordHashingUnavailableException.IMPORT_STOPPED);
+                }
+                state.reject(row.line(), row.username(), e.getCause().getMessage());
+            }
+        }
+        insert(pendingRows, pendingUsers, state);
+    }
+
+    /**
+     * Hashes the password, backing off while the encoder is saturated instead of failing the row.
+     */
+    private String encodeWhenCapacity(String password) {
+        long deadline = System.nanoTime() + hashingMaxWaitNanos;
+        long backoff = MIN_BACKOFF_NANOS;
+        while (true) {
+            try {
+                return passwordEncoder.encode(password);
+            } catch (PasswordHashingUnavailableException e) {
+                if (Thread.currentThread().isInterrupted() || System.nanoTime() + backoff - deadline > 0) {
+                    throw e;
+                }
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PasswordHashingUnavailableException(PasswordHashingUnavailableException.INTERRUPTED);
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_NANOS);
+        }
+    }
+
+    private void insert(List<ValidRow> rows, List<User> users, ImportState state) {
+        if (users.isEmpty()) {
+            return;
+        }
+        try {
+            userRepository.insertAll(users);
+            state.imported += users.size();
+        } catch (DataIntegrityViolationException e) {
+            // A username was taken after the check, e.g. by /register; store the rows one by one to find it
+            for (int i = 0; i < users.size(); i++) {
+                User user = users.get(i);
+                user.setId(null); // The rolled back batch already assigned IDs
+                try {
+                    userRepository.insertAll(List.of(user));
+                    state.imported++;
+                } catch (DataIntegrityViolationException rowException) {
+                    ValidRow row = rows.get(i);
+                    state.reject(row.line(), row.username(), UserService.isUsernameConflict(rowException)
+                            ? usernameInUse(row.username()) : "Row could not be stored.");
+                }
+            }
+        }
+    }
+
+    private String validate(String username, UserImportRowDto row) {
+        if (username == null || username.isEmpty()) {
+            return "Username is missing.";
+        }
+        if (username.length() > MAX_USERNAME_LENGTH) {
+            return "Username is longer than " + MAX_USERNAME_LENGTH + " characters.";
+        }
+        if (row.password() == null || row.password().isEmpty()) {
+            return "Password is missing.";
+        }
+        if (resolveRole(row.role()) == null) {
+            return "No such role: " + row.role();
+        }
+        return null;
+    }
+
+    private Role resolveRole(String roleName) {
+        String name = roleName == null || roleName.isBlank() ? DEFAULT_ROLE : roleName.strip();
+        return roleRegistry.findByName(name).orElse(null);
+    }
+
+    private static String usernameInUse(String username) {
+        return "Username '" + username + "' is already in use.";
+    }
+
+    private UserImportRowDto parseJsonLine(String line) {
+        try {
+            return objectMapper.readValue(line, UserImportRowDto.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    // Returns null for the header line
+    private UserImportRowDto parseCsvLine(String line) {
+        List<String> fields = splitCsvLine(line);
+        if (fields.size() < 2 || fields.size() > 3) {
+            throw new IllegalArgumentException("Expected 2 or 3 fields but found " + fields.size() + ".");
+        }
+        if ("username".equalsIgnoreCase(fields.get(0)) && "password".equalsIgnoreCase(fields.get(1))) {
+            return null;
+        }
+        return new UserImportRowDto(fields.get(0), fields.get(1), fields.size() == 3 ? fields.get(2) : null);
+    }
+
+    private static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field.");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    @Override
+    public void destroy() {
+        hashingExecutor.shutdown();
+    }
+
+    @FunctionalInterface
+    private interface LineParser {
+        UserImportRowDto parse(String line);
+    }
+
+    private record ImportRow(long line, UserImportRowDto dto) {
+    }
+
+    private record ValidRow(long line, String username, String password, Role role) {
+    }
+
+    // Running totals of one import; usernames are remembered to catch duplicates across chunks
+    private static final class ImportState {
+        private final Set<String> seenUsernames = new HashSet<>();
+        private final List<RowError> errors = new ArrayList<>();
+        private int imported;
+
+        private void reject(long line, String username, String error) {
+            errors.add(new RowError(line, username, error));
+        }
+
+        private UserImportReport report() {
+            errors.sort(Comparator.comparingLong(RowError::line));
+            return new UserImportReport(imported, errors.size(), errors);
+        }
+    }
+}
@@ -1,89 +1,323 @@
 package com.github.treladev.service;
 
 
+import com.github.treladev.dto.UserSummaryDto;
 import com.github.treladev.exception.DefaultRoleNotFoundException;
+import com.github.treladev.exception.InvalidUserFilterException;
+import com.github.treladev.exception.UserNotFoundException;
 import com.github.treladev.exception.UsernameAlreadyInUseException;
 import com.github.treladev.model.Role;
 import com.github.treladev.model.User;
-import com.github.treladev.repository.RoleRepository;
+import com.github.treladev.repository.RefreshTokenRepository;
+import com.github.treladev.repository.UserFilter;
 import com.github.treladev.repository.UserRepository;
-import jakarta.transaction.Transactional;
-import org.springframework.security.access.prepost.PostAuthorize;
-import org.springframework.security.access.prepost.PreAuthorize;
+import com.github.treladev.repository.UserTokenVersion;
+import com.github.treladev.security.AuthoritySet;
+import com.github.treladev.security.KnownRole;
+import com.github.treladev.security.RoleAuthorities;
+import com.github.treladev.security.UserUpdatePermissionEvaluator;
+import com.github.treladev.security.jwt.JwtUtil;
+import com.github.treladev.security.jwt.TokenVersionTable;
+import io.micrometer.core.annotation.Timed;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.Collection;
+import java.time.Instant;
 import java.util.List;
-import java.util.Optional;
+import java.util.Locale;
+import java.util.function.Consumer;
 
 @Service
+@Timed("user.service") // Every public method, see MetricsConfig
 public class UserService {
 
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+    // Unique index on users.username, created by V5__add_unique_username_index.sql
+    public static final String USERNAME_UNIQUE_INDEX = "users_username_key";
 
-    private UserRepository userRepository;
-    private RoleRepository roleRepository;
+    private final UserRepository userRepository;
+    private final RoleRegistry roleRegistry;
     private final PasswordEncoder passwordEncoder;
+    private final TokenVersionTable tokenVersionTable;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserCache userCache;
 
-    // Constructor to initialize UserRepository and PasswordEncoder
-    public UserService(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder ) {
+    // Constructor to initialize UserRepository, PasswordEncoder, TokenVersionTable, RefreshTokenRepository and UserCache
+    public UserService(UserRepository userRepository, RoleRegistry roleRegistry, PasswordEncoder passwordEncoder,
+                       TokenVersionTable tokenVersionTable, RefreshTokenRepository refreshTokenRepository,
+                       UserCache userCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
-        this.roleRepository = roleRepository;
+        this.roleRegistry = roleRegistry;
+        this.tokenVersionTable = tokenVersionTable;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userCache = userCache;
     }
 
     // Register a new user with encrypted password
     @Transactional
     public void registerUser(String username, String password) {
+        Role userRole = roleRegistry.findByName("ROLE_USER")
+                .orElseThrow(DefaultRoleNotFoundException::new);
         // Encrypt the password
-        //check if user already exists
-        boolean isUsernameAlreadyInUse = userRepository.findByUsername(username).isPresent();
-        if(isUsernameAlreadyInUse){
-            throw new UsernameAlreadyInUseException("Username '" + username + "' is already in use.");
-        }
         String encryptedPassword = passwordEncoder.encode(password);
-        Role userRole = roleRepository.findByName("ROLE_USER")
-                .orElseThrow(()-> new DefaultRoleNotFoundException("Default role not found."));
-        // Create new user and save to repository
-        User newUser = new User(username,password,userRole);
-        userRepository.save(newUser);
+        // Create new user and insert it; the unique username index rejects taken names
+        User newUser = new User(username, encryptedPassword, userRole);
+        saveWithUniqueUsername(newUser);
+    }
 
+    // Get one page of users with an ID greater than afterId, ordered by ID
+    @Transactional(readOnly = true)
+    public UserPage getUsersPage(long afterId, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        // One extra row tells whether another page follows, without a count query
+        List<UserSummaryDto> users = userRepository.findSummariesAfter(afterId, Limit.of(pageSize + 1));
+        if (users.size() <= pageSize) {
+            return new UserPage(users, null);
+        }
+        List<UserSummaryDto> page = users.subList(0, pageSize);
+        return new UserPage(page, page.get(pageSize - 1).id());
     }
 
-    // Get all users from the repository
-    public List<User> getAllUsers() {return userRepository.findAll();}
+    // Pass every user to the action as it is read, without loading the whole table
+    @Transactional(readOnly = true)
+    public void streamAllUsers(Consumer<? super UserSummaryDto> action) {
+        userRepository.forEachUserSummary(action);
+    }
 
-    // Update an existing user's information
+    // Update an existing user's information; the permission check reuses the loaded user instead of loading it again
     @Transactional
-    @PreAuthorize("hasPermission(#id, #updatedUser)")
     public User updateUser(Long id, User updatedUser) {
+        AuthoritySet authorities = currentAuthorities();
+        UserUpdatePermissionEvaluator.checkMayUpdateUsers(authorities);
         User presentUser = findUserById(id);
+        UserUpdatePermissionEvaluator.checkUpdate(authorities, presentUser.getRole(), updatedUser.getRole());
+        String previousUsername = presentUser.getUsername();
         String encryptedPassword = passwordEncoder.encode(updatedUser.getPassword());
         presentUser.setUsername(updatedUser.getUsername());
         presentUser.setPassword(encryptedPassword);
         presentUser.setRole(updatedUser.getRole());
-        return userRepository.save(presentUser);
+        // Tokens issued before the update still carry the old username and role
+        presentUser.setTokenVersion(presentUser.getTokenVersion() + 1);
+        presentUser.setTokenVersionRaisedAt(Instant.now());
+        User savedUser = saveWithUniqueUsername(presentUser);
+        // Logins made with the old password must not get new access tokens either
+        refreshTokenRepository.revokeAllOfUser(savedUser.getId());
+        Long userId = savedUser.getId();
+        int tokenVersion = savedUser.getTokenVersion();
+        afterCommit(() -> {
+            tokenVersionTable.raise(userId, tokenVersion);
+            userCache.removeUserFromCache(previousUsername);
+        });
+        return savedUser;
     }
 
 
-    // Delete a user by their ID
+    // Delete a user by their ID, with one DELETE statement instead of loading the user first
     @Transactional
     public void deleteUserById(Long id) {
-        User user = findUserById(id);
-        userRepository.deleteById(id);
+        if (deleteMatching(UserFilter.byIds(List.of(id))) == 0) {
+            throw new UserNotFoundException(id);
+        }
+    }
+
+    /**
+     * Deletes every user matching the filter.
+     *
+     * @return The number of deleted users.
+     * @throws InvalidUserFilterException if the filter would match all users.
+     */
+    @Transactional
+    public int deleteUsers(UserFilter filter) {
+        requireRestricted(filter);
+        return deleteMatching(filter);
+    }
+
+    /**
+     * Enables or disables every user matching the filter. Moderators never change admins:
+     * admins are excluded from the filter instead of failing the whole operation.
+     *
+     * @return The number of matching users.
+     * @throws InvalidUserFilterException if the filter would match all users.
+     */
+    @Transactional
+    public int setUsersEnabled(UserFilter filter, boolean enabled) {
+        requireRestricted(filter);
+        UserFilter permitted = currentUserIsAdmin() ? filter : excludingAdmins(filter);
+        if (permitted.matchesNothing()) {
+            return 0;
+        }
+        if (enabled) {
+            return userRepository.updateEnabledMatching(permitted, true);
+        }
+        // Disabled accounts must not keep using the access tokens they already hold
+        List<UserTokenVersion> versions = userRepository.lockTokenVersionsMatching(permitted);
+        int disabled = userRepository.updateEnabledMatching(permitted, false);
+        raiseTokenVersions(versions, disabled, new UserFilter(permitted.ids(), permitted.role(), false,
+                permitted.usernamePrefix(), permitted.excludedRole()));
+        return disabled;
+    }
+
+    /**
+     * Moves every user with one role to another, with the same rules as single updates
+     * (see {@link UserUpdatePermissionEvaluator}).
+     *
+     * @return The number of reassigned users.
+     */
+    @Transactional
+    public int reassignRole(Role fromRole, Role toRole) {
+        UserUpdatePermissionEvaluator.checkUpdate(currentAuthorities(), fromRole, toRole);
+        UserFilter filter = UserFilter.byRole(fromRole);
+        // Tokens issued before the change still carry the old role
+        List<UserTokenVersion> versions = userRepository.lockTokenVersionsMatching(filter);
+        int reassigned = userRepository.updateRoleMatching(filter, toRole);
+        raiseTokenVersions(versions, reassigned, UserFilter.byRole(toRole));
+        return reassigned;
+    }
+
+    // Forgets deleted users once every token they held has expired (plus the second lost by truncating `iat`)
+    @Scheduled(fixedDelayString = "${jwt.revocation.table-purge-interval:PT1H}")
+    @Transactional
+    public void purgeDeletedUsers() {
+        userRepository.deleteDeletionsBefore(Instant.now().minus(JwtUtil.TOKEN_LIFETIME).minusSeconds(1));
+    }
+
+    // The IDs are read first, so the tokens of the deleted users can be rejected. The rows stay locked, so a
+    // concurrent delete of the same users waits and then finds them gone instead of recording them twice.
+    private int deleteMatching(UserFilter filter) {
+        if (filter.matchesNothing()) {
+            return 0;
+        }
+        List<UserTokenVersion> versions = userRepository.lockTokenVersionsMatching(filter);
+        if (versions.isEmpty()) {
+            return 0;
+        }
+        int deleted = userRepository.deleteMatching(filter);
+        afterCommit(() -> versions.forEach(version -> {
+            tokenVersionTable.delete(version.id());
+            userCache.removeUserFromCache(version.username());
+        }));
+        return deleted;
+    }
+
+    /**
+     * Raises the token versions of the users a bulk UPDATE changed.
+     *
+     * The locked rows still match and no other transaction changed them, so if the UPDATE changed as many rows,
+     * it changed exactly these and incremented each version once. Otherwise users started to match between the
+     * lock and the UPDATE; the versions are then read back from the rows as they are after the UPDATE, via a filter
+     * that matches every changed user (and possibly unchanged ones, whose current version is raised harmlessly).
+     */
+    private void raiseTokenVersions(List<UserTokenVersion> locked, int updated, UserFilter changed) {
+        if (updated == locked.size()) {
+            afterCommit(() -> locked.forEach(version -> {
+                tokenVersionTable.raise(version.id(), version.tokenVersion() + 1);
+                userCache.removeUserFromCache(version.username());
+            }));
+            return;
+        }
+        List<UserTokenVersion> versions = userRepository.findTokenVersionsMatching(changed);
+        afterCommit(() -> versions.forEach(version -> {
+            tokenVersionTable.raise(version.id(), version.tokenVersion());
+            userCache.removeUserFromCache(version.username());
+        }));
+    }
+
+    /**
+     * Changes the token version table and the login cache once the transaction has committed: before that, other
+     * requests still read the old version from the database, and after a rollback the old version must stay accepted.
+     */
+    private static void afterCommit(Runnable tableChange) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            tableChange.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                tableChange.run();
+            }
+        });
+    }
+
+    private static void requireRestricted(UserFilter filter) {
+        if (filter.isUnrestricted()) {
+            throw new InvalidUserFilterException(InvalidUserFilterException.EMPTY);
+        }
+    }
+
+    private UserFilter excludingAdmins(UserFilter filter) {
+        if (filter.role() != null && isAdminRole(filter.role())) {
+            return UserFilter.byIds(List.of());
+        }
+        return roleRegistry.findByName(KnownRole.ADMIN.authority()).map(filter::excluding).orElse(filter);
+    }
+
+    private static boolean currentUserIsAdmin() {
+        return currentAuthorities().hasRole(KnownRole.ADMIN);
+    }
+
+    private static AuthoritySet currentAuthorities() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? RoleAuthorities.EMPTY : RoleAuthorities.of(authentication.getAuthorities());
+    }
+
+    private static boolean isAdminRole(Role role) {
+        return KnownRole.ADMIN.authority().equals(role.getName());
+    }
+
+
+    /**
+     * Writes the user immediately, so a taken username surfaces here instead of at commit.
+     *
+     * There is no "does the username exist" query before the write: it would cost an extra round trip
+     * and two concurrent registrations could both pass it. The unique index decides instead.
+     *
+     * @throws UsernameAlreadyInUseException if another user already has the username.
+     */
+    private User saveWithUniqueUsername(User user) {
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            if (isUsernameConflict(e)) {
+                throw new UsernameAlreadyInUseException(user.getUsername());
+            }
+            throw e;
+        }
     }
 
+    static boolean isUsernameConflict(DataIntegrityViolationException e) {
+        return e.getCause() instanceof ConstraintViolationException violation
+                && violation.getConstraintName() != null
+                && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(USERNAME_UNIQUE_INDEX);
+    }
 
     public User findUserById(Long id) {
         User user = userRepository.findById(id).orElseThrow(() ->
-                new UsernameNotFoundException("No user found with id " + id));
+                new UserNotFoundException(id));
         return user;
     }
 
+    /**
+     * One page of users and the cursor of the next page.
+     *
+     * @param users     The users of this page, ordered by ID.
+     * @param nextAfter The ID to continue after, or null if this is the last page.
+     */
+    public record UserPage(List<UserSummaryDto> users, Long nextAfter) {
+    }
+
 
 
 
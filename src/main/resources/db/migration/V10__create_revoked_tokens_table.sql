@@ -0,0 +1,11 @@
+-- V10__create_revoked_tokens_table.sql
+-- Access tokens revoked on logout, by their jti claim. Every instance loads the unexpired rows at startup
+-- and reads the ones revoked since its last sync, so a logout holds on all instances and across restarts.
+CREATE TABLE revoked_tokens (
+    token_id VARCHAR(64) PRIMARY KEY,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    revoked_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX ix_revoked_tokens_expires_at ON revoked_tokens (expires_at);
+CREATE INDEX ix_revoked_tokens_revoked_at ON revoked_tokens (revoked_at);
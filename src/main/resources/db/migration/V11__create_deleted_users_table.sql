@@ -0,0 +1,9 @@
+-- V11__create_deleted_users_table.sql
+-- Users deleted within the last token lifetime. Their rows in users are gone, so this is how the other instances,
+-- and every instance after a restart, learn to reject the tokens they still hold.
+CREATE TABLE deleted_users (
+    user_id BIGINT PRIMARY KEY,
+    deleted_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX ix_deleted_users_deleted_at ON deleted_users (deleted_at);
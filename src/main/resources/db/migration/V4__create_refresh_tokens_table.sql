@@ -0,0 +1,16 @@
+-- V4__create_refresh_tokens_table.sql (Opaque, rotating refresh tokens)
+CREATE TABLE refresh_tokens (
+    id BIGSERIAL PRIMARY KEY,
+    token_hash VARCHAR(64) NOT NULL,       -- SHA-256 of the token; the raw token is never stored
+    family_id VARCHAR(36) NOT NULL,        -- Shared by every token rotated from the same login
+    user_id BIGINT NOT NULL,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    used BOOLEAN NOT NULL DEFAULT FALSE,   -- Set once the token has been exchanged for a new one
+    revoked BOOLEAN NOT NULL DEFAULT FALSE,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- Every refresh is a single lookup by hash
+CREATE UNIQUE INDEX ux_refresh_tokens_token_hash ON refresh_tokens (token_hash);
+CREATE INDEX ix_refresh_tokens_family_id ON refresh_tokens (family_id);
+CREATE INDEX ix_refresh_tokens_user_id ON refresh_tokens (user_id);
@@ -0,0 +1,4 @@
+-- V7__add_users_token_version.sql
+-- Every access token carries the token version of its user ("ver" claim). Role changes, disabling and
+-- password updates increment it, so tokens issued before the change are rejected.
+ALTER TABLE users ADD COLUMN token_version INTEGER NOT NULL DEFAULT 0;
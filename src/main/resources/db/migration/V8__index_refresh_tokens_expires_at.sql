@@ -0,0 +1,3 @@
+-- V8__index_refresh_tokens_expires_at.sql
+-- Expired refresh tokens are deleted periodically by expires_at
+CREATE INDEX ix_refresh_tokens_expires_at ON refresh_tokens (expires_at);
@@ -0,0 +1,9 @@
+-- V9__add_users_token_version_raised_at.sql
+-- When the token version was last incremented. At startup, the token version table of each instance is filled
+-- with the users raised within the last token lifetime, whose older tokens may still be in use.
+ALTER TABLE users ADD COLUMN token_version_raised_at TIMESTAMP WITH TIME ZONE;
+
+-- The time of earlier raises is unknown: the first start treats them as recent, once
+UPDATE users SET token_version_raised_at = CURRENT_TIMESTAMP WHERE token_version > 0;
+
+CREATE INDEX ix_users_token_version_raised_at ON users (token_version_raised_at);
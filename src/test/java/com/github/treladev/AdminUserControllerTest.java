@@ -0,0 +1,177 @@
+package com.github.treladev;
+
+import com.github.treladev.controller.AdminUserController;
+import com.github.treladev.dto.UserImportReport;
+import com.github.treladev.dto.UserImportReport.RowError;
+import com.github.treladev.exception.InvalidUserFilterException;
+import com.github.treladev.model.Role;
+import com.github.treladev.repository.UserFilter;
+import com.github.treladev.security.jwt.JwtUtil;
+import com.github.treladev.security.jwt.VerifiedToken;
+import com.github.treladev.security.jwt.VerifiedTokenCache;
+import com.github.treladev.service.RoleRegistry;
+import com.github.treladev.service.UserImportService;
+import com.github.treladev.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ActiveProfiles("test")
+@WebMvcTest(AdminUserController.class)
+@Import(TestSecurityConfig.class)
+public class AdminUserControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private UserImportService userImportService;
+
+    @MockitoBean
+    private UserService userService;
+
+    @MockitoBean
+    private RoleRegistry roleRegistry;
+
+    @MockitoBean
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @BeforeEach
+    void setUp() {
+        // The same mock token carries different roles across tests
+        verifiedTokenCache.invalidateAll();
+    }
+
+    @Test
+    @DisplayName("POST /admin/users/import - should pass a CSV body to the importer and return the row report")
+    void importUsers_shouldReturnReportForCsv() throws Exception {
+        when(jwtUtil.verifyToken("admin.jwt.token")).thenReturn(verifiedToken("ROLE_ADMIN"));
+        when(userImportService.importCsv(any(InputStream.class))).thenReturn(new UserImportReport(1, 1,
+                List.of(new RowError(3, "admin", "Username 'admin' is already in use."))));
+
+        mockMvc.perform(post("/admin/users/import")
+                        .header("Authorization", "Bearer admin.jwt.token")
+                        .contentType(AdminUserController.TEXT_CSV_VALUE)
+                        .content("username,password\nalice,secret\nadmin,secret\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(3))
+                .andExpect(jsonPath("$.errors[0].error").value("Username 'admin' is already in use."));
+        verify(userImportService, never()).importNdjson(any());
+    }
+
+    @Test
+    @DisplayName("POST /admin/users/import - should return 403 for moderators")
+    void importUsers_shouldReturnForbiddenForModerator() throws Exception {
+        when(jwtUtil.verifyToken("moderator.jwt.token")).thenReturn(verifiedToken("ROLE_MODERATOR"));
+
+        mockMvc.perform(post("/admin/users/import")
+                        .header("Authorization", "Bearer moderator.jwt.token")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"username\":\"alice\",\"password\":\"secret\"}\n"))
+                .andExpect(status().isForbidden());
+        verifyNoInteractions(userImportService);
+    }
+
+    @Test
+    @DisplayName("POST /admin/users/enabled - should pass the resolved filter to the service and return the affected count")
+    void setUsersEnabled_shouldReturnAffectedCount() throws Exception {
+        Role guest = new Role("ROLE_GUEST");
+        when(jwtUtil.verifyToken("moderator.jwt.token")).thenReturn(verifiedToken("ROLE_MODERATOR"));
+        when(roleRegistry.findByName("ROLE_GUEST")).thenReturn(Optional.of(guest));
+        when(userService.setUsersEnabled(new UserFilter(null, guest, null, "test", null), false)).thenReturn(7);
+
+        mockMvc.perform(post("/admin/users/enabled")
+                        .header("Authorization", "Bearer moderator.jwt.token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"filter\":{\"role\":\"ROLE_GUEST\",\"usernamePrefix\":\"Test\"},\"enabled\":false}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(7));
+    }
+
+    @Test
+    @DisplayName("POST /admin/users/role - should return 404 for an unknown role")
+    void reassignRole_shouldReturnNotFoundForUnknownRole() throws Exception {
+        when(jwtUtil.verifyToken("admin.jwt.token")).thenReturn(verifiedToken("ROLE_ADMIN"));
+        when(roleRegistry.findByName("ROLE_USER")).thenReturn(Optional.of(new Role("ROLE_USER")));
+
+        mockMvc.perform(post("/admin/users/role")
+                        .header("Authorization", "Bearer admin.jwt.token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fromRole\":\"ROLE_USER\",\"toRole\":\"ROLE_UNKNOWN\"}"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.title").value("Role not found"))
+                .andExpect(jsonPath("$.detail").value("No such role: ROLE_UNKNOWN"));
+        verify(userService, never()).reassignRole(any(), any());
+    }
+
+    @Test
+    @DisplayName("POST /admin/users/delete - should return 403 for moderators")
+    void deleteUsers_shouldReturnForbiddenForModerator() throws Exception {
+        when(jwtUtil.verifyToken("moderator.jwt.token")).thenReturn(verifiedToken("ROLE_MODERATOR"));
+
+        mockMvc.perform(post("/admin/users/delete")
+                        .header("Authorization", "Bearer moderator.jwt.token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[3,4]}"))
+                .andExpect(status().isForbidden());
+        verify(userService, never()).deleteUsers(any());
+    }
+
+    @Test
+    @DisplayName("POST /admin/users/delete - should return 400 for a filter without criteria")
+    void deleteUsers_shouldReturnBadRequestForUnrestrictedFilter() throws Exception {
+        when(jwtUtil.verifyToken("admin.jwt.token")).thenReturn(verifiedToken("ROLE_ADMIN"));
+        when(userService.deleteUsers(eq(new UserFilter(null, null, null, null, null))))
+                .thenThrow(new InvalidUserFilterException(InvalidUserFilterException.EMPTY));
+
+        mockMvc.perform(post("/admin/users/delete")
+                        .header("Authorization", "Bearer admin.jwt.token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("POST /admin/users/delete - should return 400 for null IDs")
+    void deleteUsers_shouldReturnBadRequestForNullId() throws Exception {
+        when(jwtUtil.verifyToken("admin.jwt.token")).thenReturn(verifiedToken("ROLE_ADMIN"));
+
+        mockMvc.perform(post("/admin/users/delete")
+                        .header("Authorization", "Bearer admin.jwt.token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[3,null]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.detail").value(InvalidUserFilterException.NULL_ID));
+        verify(userService, never()).deleteUsers(any());
+    }
+
+    // Builds the claims the mocked JwtUtil reports for a valid token
+    private static VerifiedToken verifiedToken(String roles) {
+        return new VerifiedToken("test-token-id", 99L, "test-user", roles, 0, Instant.now(),
+                Instant.now().plusSeconds(600));
+    }
+}
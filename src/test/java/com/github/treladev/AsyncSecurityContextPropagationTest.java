@@ -0,0 +1,74 @@
+package com.github.treladev;
+
+import com.github.treladev.security.AsyncSecurityConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncSecurityContextPropagationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(TaskExecutionAutoConfiguration.class))
+            .withUserConfiguration(AsyncSecurityConfig.class, AsyncProbe.class);
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Should run @Async methods with the caller's authentication on platform threads")
+    void async_shouldPropagateSecurityContextOnPlatformThreads() {
+        contextRunner.run(context -> {
+            AsyncResult result = callAsAdmin(context.getBean(AsyncProbe.class));
+
+            assertEquals("admin", result.username());
+            assertFalse(result.virtualThread());
+        });
+    }
+
+    @Test
+    @DisplayName("Should run @Async methods with the caller's authentication on virtual threads")
+    void async_shouldPropagateSecurityContextOnVirtualThreads() {
+        contextRunner.withPropertyValues("spring.threads.virtual.enabled=true").run(context -> {
+            AsyncResult result = callAsAdmin(context.getBean(AsyncProbe.class));
+
+            assertEquals("admin", result.username());
+            assertTrue(result.virtualThread());
+        });
+    }
+
+    private static AsyncResult callAsAdmin(AsyncProbe probe) throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("admin", null, "ROLE_ADMIN"));
+        AsyncResult result = probe.currentUser().get(5, TimeUnit.SECONDS);
+        assertNotEquals(Thread.currentThread().threadId(), result.threadId());
+        return result;
+    }
+
+    record AsyncResult(String username, boolean virtualThread, long threadId) {
+    }
+
+    static class AsyncProbe {
+
+        @Async
+        public CompletableFuture<AsyncResult> currentUser() {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            Thread thread = Thread.currentThread();
+            return CompletableFuture.completedFuture(new AsyncResult(
+                    authentication == null ? null : authentication.getName(), thread.isVirtual(), thread.threadId()));
+        }
+    }
+}
@@ -2,9 +2,15 @@ package com.github.treladev;
 
 
 import com.github.treladev.controller.AuthController;
+import com.github.treladev.model.Role;
+import com.github.treladev.model.User;
 import com.github.treladev.repository.RoleRepository;
+import com.github.treladev.repository.UserFilter;
 import com.github.treladev.repository.UserRepository;
+import com.github.treladev.security.CaffeineUserCache;
+import com.github.treladev.service.RoleRegistry;
 import com.github.treladev.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -16,14 +22,24 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
 
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.context.ActiveProfiles;
 
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.List;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.startsWith;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -53,11 +69,54 @@ public class AuthControllerTest {
     MockUserRepository userRepository; // Custom mock implementation
     @Autowired
     MockRoleRepository roleRepository;
+    @Autowired
+    RoleRegistry roleRegistry;
+    @Autowired
+    MockRefreshTokenRepository refreshTokenRepository;
+    @Autowired
+    MockRevokedTokenRepository revokedTokenRepository;
+    @Autowired
+    CaffeineUserCache userCache;
+    @Autowired
+    UserService userService;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    CountingPasswordEncoder passwordEncoder;
 
     @BeforeEach
     void SetUp(){
+        SecurityContextHolder.clearContext();
+        userCache.invalidateAll();
         userRepository.initTestData();
         roleRepository.initTestData();
+        roleRegistry.reload();
+        refreshTokenRepository.initTestData();
+        revokedTokenRepository.initTestData();
+    }
+
+    // Logs in and returns the refresh token from the response header
+    private String loginAndGetRefreshToken(String username, String password) throws Exception {
+        return mockMvc.perform(post("/login")
+                        .servletPath("/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\": \"" + username + "\", \"password\": \"" + password + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("Refresh-Token");
+    }
+
+    private ResultActions login(String username, String password) throws Exception {
+        return mockMvc.perform(post("/login")
+                .servletPath("/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\": \"" + username + "\", \"password\": \"" + password + "\"}"));
+    }
+
+    private ResultActions refresh(String refreshToken) throws Exception {
+        return mockMvc.perform(post("/token/refresh")
+                .servletPath("/token/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"refreshToken\": \"" + refreshToken + "\"}"));
     }
 
 
@@ -80,10 +139,53 @@ public class AuthControllerTest {
                 .andExpect(header().exists("Authorization")) // Check for auth header
                 .andExpect(header().string("Authorization",
                         startsWith("Bearer "))) // Verify JWT prefix
+                .andExpect(header().exists("Refresh-Token")) // Check for refresh token
                 .andExpect(content().string(
                         "JWT token generated successfully! You can find it in the 'Authorization' header."));
     }
 
+    @Test
+    @DisplayName("POST /token/refresh - should return new access and refresh tokens for a valid refresh token")
+    void refresh_ShouldReturnNewTokensForValidRefreshToken() throws Exception {
+        String refreshToken = loginAndGetRefreshToken("user1", "user1");
+
+        String rotatedToken = refresh(refreshToken)
+                .andExpect(status().isOk())
+                .andExpect(header().string("Authorization", startsWith("Bearer ")))
+                .andExpect(header().exists("Refresh-Token"))
+                .andReturn().getResponse().getHeader("Refresh-Token");
+
+        assertNotEquals(refreshToken, rotatedToken);
+        // The rotated token can be used once in turn
+        refresh(rotatedToken).andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("POST /token/refresh - should return 401 and revoke the token family when a used token is replayed")
+    void refresh_ShouldRevokeFamilyWhenUsedTokenIsReplayed() throws Exception {
+        String refreshToken = loginAndGetRefreshToken("user1", "user1");
+        String rotatedToken = refresh(refreshToken)
+                .andReturn().getResponse().getHeader("Refresh-Token");
+
+        // Replaying the first token revokes every token of the login
+        refresh(refreshToken)
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().doesNotExist("Authorization"));
+        refresh(rotatedToken)
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("POST /token/refresh - should return 401 Unauthorized for an unknown refresh token")
+    void refresh_ShouldReturnUnauthorizedForUnknownToken() throws Exception {
+        refresh("unknown-token")
+                .andExpect(status().isUnauthorized())
+                .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.type").value("urn:problem:invalid-refresh-token"))
+                .andExpect(jsonPath("$.status").value(401))
+                .andExpect(jsonPath("$.detail").value("Invalid refresh token."));
+    }
+
     @Test
     @DisplayName("POST /login - should return 401 Unauthorized for invalid credentials")
     void login_ShouldReturnUnauthorizedForInvalidCredentials() throws Exception {
@@ -100,15 +202,80 @@ public class AuthControllerTest {
                 // Assertions:
                 .andExpect(status().isUnauthorized()) // Verify 401 status
                 .andExpect(header().doesNotExist("Authorization")) // No auth header
-                .andExpect(content().string(containsString("Invalid credentials"))); // Error message
+                .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.title").value("Invalid credentials")); // Error message
+    }
+
+    @Test
+    @DisplayName("POST /logout - should revoke the presented JWT token")
+    void logout_ShouldRevokeJwtToken() throws Exception {
+        String jwtToken = mockMvc.perform(post("/login")
+                        .servletPath("/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                {
+                    "username": "user1",
+                    "password": "user1"
+                }
+                """))
+                .andReturn().getResponse().getHeader("Authorization");
+
+        mockMvc.perform(post("/logout")
+                        .servletPath("/logout")
+                        .header("Authorization", jwtToken))
+                .andExpect(status().isOk());
+        // Stored for the other instances and the next start
+        assertEquals(1, revokedTokenRepository.findAll().size());
+
+        // The token is rejected before the request reaches any controller
+        mockMvc.perform(get("/users")
+                        .servletPath("/users")
+                        .header("Authorization", jwtToken))
+                .andExpect(status().isUnauthorized())
+                .andExpect(content().string("JWT Authentication failed."));
+    }
+
+    @Test
+    @DisplayName("POST /logout - should revoke the refresh token family presented with the logout")
+    void logout_ShouldRevokeRefreshTokenFamily() throws Exception {
+        MockHttpServletResponse loginResponse = login("user1", "user1").andReturn().getResponse();
+        String otherDeviceToken = loginAndGetRefreshToken("user1", "user1");
+
+        mockMvc.perform(post("/logout")
+                        .servletPath("/logout")
+                        .header("Authorization", loginResponse.getHeader("Authorization"))
+                        .header("Refresh-Token", loginResponse.getHeader("Refresh-Token")))
+                .andExpect(status().isOk());
+
+        refresh(loginResponse.getHeader("Refresh-Token"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().doesNotExist("Authorization"));
+        // Logins on other devices stay valid
+        refresh(otherDeviceToken)
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("POST /logout - should revoke every refresh token of the user when none is presented")
+    void logout_ShouldRevokeAllRefreshTokensWithoutHeader() throws Exception {
+        MockHttpServletResponse loginResponse = login("user1", "user1").andReturn().getResponse();
+        String otherUserToken = loginAndGetRefreshToken("user2", "user2");
+
+        mockMvc.perform(post("/logout")
+                        .servletPath("/logout")
+                        .header("Authorization", loginResponse.getHeader("Authorization")))
+                .andExpect(status().isOk());
+
+        refresh(loginResponse.getHeader("Refresh-Token"))
+                .andExpect(status().isUnauthorized());
+        refresh(otherUserToken)
+                .andExpect(status().isOk());
     }
 
     @Test
     @DisplayName("POST /register - should return 200 OK when registration is successful")
     void register_ShouldReturnOkWhenSuccessful() throws Exception {
         // Test successful registration
-
-        System.out.println("LISTA WSZYSKTICH UZTYTKOWNIKOW" +  userRepository.findAll());
         mockMvc.perform(post("/register")
                         .servletPath("/register")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -140,6 +307,96 @@ public class AuthControllerTest {
                 """))
                 // Assertions:
                 .andExpect(status().isConflict()) // Verify 409 status
-                .andExpect(content().string(containsString("is already in use."))); // Partial error message
+                .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.status").value(409))
+                .andExpect(jsonPath("$.detail").value(containsString("is already in use."))); // Partial error message
+    }
+
+    @Test
+    @DisplayName("POST /login - repeated logins of the same user should load the user once")
+    void login_ShouldLoadUserOnceForRepeatedLogins() throws Exception {
+        login("user1", "user1").andExpect(status().isOk());
+        login("USER1", "user1").andExpect(status().isOk());
+        login("user1", "user1").andExpect(status().isOk());
+
+        assertEquals(1, userRepository.findByUsernameCalls());
+    }
+
+    @Test
+    @DisplayName("POST /login - a wrong password for a cached user should be verified once, without reloading the user")
+    void login_ShouldVerifyWrongPasswordOnceForCachedUser() throws Exception {
+        login("user1", "user1").andExpect(status().isOk());
+        int matchesCalls = passwordEncoder.matchesCalls();
+
+        login("user1", "wrong").andExpect(status().isUnauthorized());
+
+        assertEquals(1, passwordEncoder.matchesCalls() - matchesCalls);
+        assertEquals(1, userRepository.findByUsernameCalls());
+    }
+
+    @Test
+    @DisplayName("POST /login - disabling and enabling users should take effect right away")
+    void login_ShouldNotUseCachedUserAfterDisableOrEnable() throws Exception {
+        // An ID of its own: the raised token version stays in the table shared by all tests
+        userRepository.saveAndFlush(new User("user5", "user5", new Role("ROLE_USER"))).setId(100L);
+        login("user5", "user5").andExpect(status().isOk());
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("admin", null, "ROLE_ADMIN"));
+
+        userService.setUsersEnabled(UserFilter.byIds(List.of(100L)), false);
+
+        assertNull(userCache.getUserFromCache("user5"));
+        login("user5", "user5").andExpect(status().isUnauthorized());
+
+        userService.setUsersEnabled(UserFilter.byIds(List.of(100L)), true);
+
+        login("user5", "user5").andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("POST /login - should use the new password right after a user update")
+    void login_ShouldNotUseCachedUserAfterUpdate() throws Exception {
+        login("user1", "user1").andExpect(status().isOk());
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("admin", null, "ROLE_ADMIN"));
+
+        userService.updateUser(3L, new User("user1", "changed", new Role("ROLE_USER")));
+
+        assertNull(userCache.getUserFromCache("user1"));
+        login("user1", "user1").andExpect(status().isUnauthorized());
+        login("user1", "changed").andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("POST /login - should reject a deleted user even if it was cached")
+    void login_ShouldNotUseCachedUserAfterDelete() throws Exception {
+        login("user2", "user2").andExpect(status().isOk());
+
+        userService.deleteUserById(4L);
+
+        assertNull(userCache.getUserFromCache("user2"));
+        login("user2", "user2").andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("POST /login - should count attempts by result and time each phase")
+    void login_ShouldRecordAttemptsAndPhases() throws Exception {
+        double successes = loginAttempts("success");
+        double failures = loginAttempts("failure");
+        long lookups = meterRegistry.get("login.phase").tag("phase", "lookup").timer().count();
+
+        login("admin", "admin").andExpect(status().isOk());
+        login("admin", "admin").andExpect(status().isOk());
+        // The second login finds the user in the login cache
+        assertEquals(1, meterRegistry.get("login.phase").tag("phase", "lookup").timer().count() - lookups);
+        login("admin", "wrong").andExpect(status().isUnauthorized());
+
+        assertEquals(2, loginAttempts("success") - successes);
+        assertEquals(1, loginAttempts("failure") - failures);
+        assertTrue(meterRegistry.get("login.phase").tag("phase", "tokens").timer().count() > 0);
+    }
+
+    private double loginAttempts(String result) {
+        return meterRegistry.get("login.attempts").tag("result", result).counter().count();
     }
-}
\ No newline at end of file
+}
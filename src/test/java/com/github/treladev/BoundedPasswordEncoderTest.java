@@ -0,0 +1,99 @@
+package com.github.treladev;
+
+import com.github.treladev.exception.PasswordHashingUnavailableException;
+import com.github.treladev.security.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedPasswordEncoderTest {
+
+    @Test
+    @DisplayName("Should hash on the pool and record hash time")
+    void encode_shouldDelegateAndRecordMetrics() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(NoOpPasswordEncoder.getInstance(), 1, 1,
+                Duration.ofSeconds(1), meterRegistry);
+
+        assertEquals("secret", encoder.encode("secret"));
+        assertTrue(encoder.matches("secret", "secret"));
+        assertEquals(1, meterRegistry.get("password.hashing.duration").tag("operation", "encode").timer().count());
+        assertEquals(1, meterRegistry.get("password.hashing.duration").tag("operation", "matches").timer().count());
+        encoder.destroy();
+    }
+
+    @Test
+    @DisplayName("Should reject immediately when every thread is busy and the queue is full")
+    void matches_shouldShedLoadWhenPoolIsSaturated() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blockingEncoder(release), 1, 1,
+                Duration.ofSeconds(5), meterRegistry);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            // One call occupies the only thread, the second one fills the queue
+            Future<Boolean> running = callers.submit(() -> encoder.matches("a", "a"));
+            Future<Boolean> queued = callers.submit(() -> encoder.matches("b", "b"));
+            while (meterRegistry.get("password.hashing.queue.size").gauge().value() < 1) {
+                Thread.sleep(5);
+            }
+
+            assertThrows(PasswordHashingUnavailableException.class, () -> encoder.matches("c", "c"));
+            assertEquals(1, meterRegistry.get("password.hashing.rejected").counter().count());
+
+            release.countDown();
+            assertTrue(running.get(1, TimeUnit.SECONDS));
+            assertTrue(queued.get(1, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            callers.shutdownNow();
+            encoder.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should give up once the maximum wait has passed")
+    void encode_shouldTimeOutWhenWorkDoesNotFinishInTime() {
+        CountDownLatch release = new CountDownLatch(1);
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blockingEncoder(release), 1, 1,
+                Duration.ofMillis(50), new SimpleMeterRegistry());
+        try {
+            assertThrows(PasswordHashingUnavailableException.class, () -> encoder.encode("secret"));
+        } finally {
+            release.countDown();
+            encoder.destroy();
+        }
+    }
+
+    // Behaves like NoOpPasswordEncoder, but only once the latch is released
+    private static PasswordEncoder blockingEncoder(CountDownLatch release) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                await(release);
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                await(release);
+                return rawPassword.toString().equals(encodedPassword);
+            }
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.treladev;
+
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Stores passwords as they are, like NoOpPasswordEncoder, and counts the verifications a BCrypt encoder would run
+public class CountingPasswordEncoder implements PasswordEncoder {
+
+    private final AtomicInteger matchesCalls = new AtomicInteger();
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return NoOpPasswordEncoder.getInstance().encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        matchesCalls.incrementAndGet();
+        return NoOpPasswordEncoder.getInstance().matches(rawPassword, encodedPassword);
+    }
+
+    public int matchesCalls() {
+        return matchesCalls.get();
+    }
+}
@@ -0,0 +1,228 @@
+package com.github.treladev;
+
+import com.github.treladev.model.RefreshToken;
+import com.github.treladev.repository.RefreshTokenRepository;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+public class MockRefreshTokenRepository implements RefreshTokenRepository {
+
+    private final List<RefreshToken> tokens = new ArrayList<>();
+    private Long currentId = 1L;
+
+
+
+    @Override
+    public Optional<RefreshToken> findByTokenHash(String tokenHash) {
+        return tokens.stream()
+                .filter(token -> token.getTokenHash().equals(tokenHash))
+                .findFirst();
+    }
+
+    @Override
+    public int claim(Long id) {
+        for (RefreshToken token : tokens) {
+            if (token.getId().equals(id) && !token.isUsed() && !token.isRevoked()) {
+                token.setUsed(true);
+                return 1;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public int revokeAllOfUser(Long userId) {
+        List<RefreshToken> revoked = tokens.stream()
+                .filter(token -> token.getUser().getId().equals(userId) && !token.isRevoked())
+                .toList();
+        revoked.forEach(token -> token.setRevoked(true));
+        return revoked.size();
+    }
+
+    @Override
+    public int deleteExpired(Instant now) {
+        int sizeBefore = tokens.size();
+        tokens.removeIf(token -> token.isExpired(now));
+        return sizeBefore - tokens.size();
+    }
+
+    @Override
+    public int revokeFamily(String familyId) {
+        List<RefreshToken> family = findByFamilyId(familyId);
+        family.forEach(token -> token.setRevoked(true));
+        return family.size();
+    }
+
+    public List<RefreshToken> findByFamilyId(String familyId) {
+        return tokens.stream()
+                .filter(token -> token.getFamilyId().equals(familyId))
+                .toList();
+    }
+
+    @Override
+    public void flush() {
+
+    }
+
+    @Override
+    public <S extends RefreshToken> S saveAndFlush(S entity) {
+        return null;
+    }
+
+    @Override
+    public <S extends RefreshToken> List<S> saveAllAndFlush(Iterable<S> entities) {
+        return List.of();
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<RefreshToken> entities) {
+
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<Long> longs) {
+
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+
+    }
+
+    @Override
+    public RefreshToken getOne(Long aLong) {
+        return null;
+    }
+
+    @Override
+    public RefreshToken getById(Long aLong) {
+        return null;
+    }
+
+    @Override
+    public RefreshToken getReferenceById(Long aLong) {
+        return null;
+    }
+
+    @Override
+    public <S extends RefreshToken> Optional<S> findOne(Example<S> example) {
+        return Optional.empty();
+    }
+
+    @Override
+    public <S extends RefreshToken> List<S> findAll(Example<S> example) {
+        return List.of();
+    }
+
+    @Override
+    public <S extends RefreshToken> List<S> findAll(Example<S> example, Sort sort) {
+        return List.of();
+    }
+
+    @Override
+    public <S extends RefreshToken> Page<S> findAll(Example<S> example, Pageable pageable) {
+        return null;
+    }
+
+    @Override
+    public <S extends RefreshToken> long count(Example<S> example) {
+        return 0;
+    }
+
+    @Override
+    public <S extends RefreshToken> boolean exists(Example<S> example) {
+        return false;
+    }
+
+    @Override
+    public <S extends RefreshToken, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        return null;
+    }
+
+    @Override
+    public <S extends RefreshToken> S save(S entity) {
+        entity.setId(currentId++);
+        tokens.add(entity);
+        return entity;
+    }
+
+    @Override
+    public <S extends RefreshToken> List<S> saveAll(Iterable<S> entities) {
+        return List.of();
+    }
+
+    @Override
+    public Optional<RefreshToken> findById(Long aLong) {
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean existsById(Long aLong) {
+        return false;
+    }
+
+    @Override
+    public List<RefreshToken> findAll() {
+        return tokens;
+    }
+
+    @Override
+    public List<RefreshToken> findAllById(Iterable<Long> longs) {
+        return List.of();
+    }
+
+    @Override
+    public long count() {
+        return 0;
+    }
+
+    @Override
+    public void deleteById(Long aLong) {
+
+    }
+
+    @Override
+    public void delete(RefreshToken entity) {
+
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> longs) {
+
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends RefreshToken> entities) {
+
+    }
+
+    @Override
+    public void deleteAll() {
+
+    }
+
+    @Override
+    public List<RefreshToken> findAll(Sort sort) {
+        return List.of();
+    }
+
+    @Override
+    public Page<RefreshToken> findAll(Pageable pageable) {
+        return null;
+    }
+
+    public void initTestData() {
+        tokens.clear();
+        currentId = 1L;
+    }
+
+}
@@ -0,0 +1,195 @@
+package com.github.treladev;
+
+import com.github.treladev.model.RevokedToken;
+import com.github.treladev.repository.RevokedTokenRepository;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+public class MockRevokedTokenRepository implements RevokedTokenRepository {
+
+    private final List<RevokedToken> tokens = new ArrayList<>();
+
+
+
+    @Override
+    public List<RevokedToken> findRevokedSince(Instant since, Instant now) {
+        return tokens.stream()
+                .filter(token -> token.getRevokedAt().isAfter(since) && token.getExpiresAt().isAfter(now))
+                .toList();
+    }
+
+    @Override
+    public int deleteExpired(Instant now) {
+        int sizeBefore = tokens.size();
+        tokens.removeIf(token -> !token.getExpiresAt().isAfter(now));
+        return sizeBefore - tokens.size();
+    }
+
+    @Override
+    public void flush() {
+
+    }
+
+    @Override
+    public <S extends RevokedToken> S saveAndFlush(S entity) {
+        return null;
+    }
+
+    @Override
+    public <S extends RevokedToken> List<S> saveAllAndFlush(Iterable<S> entities) {
+        return List.of();
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<RevokedToken> entities) {
+
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<String> strings) {
+
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+
+    }
+
+    @Override
+    public RevokedToken getOne(String s) {
+        return null;
+    }
+
+    @Override
+    public RevokedToken getById(String s) {
+        return null;
+    }
+
+    @Override
+    public RevokedToken getReferenceById(String s) {
+        return null;
+    }
+
+    @Override
+    public <S extends RevokedToken> Optional<S> findOne(Example<S> example) {
+        return Optional.empty();
+    }
+
+    @Override
+    public <S extends RevokedToken> List<S> findAll(Example<S> example) {
+        return List.of();
+    }
+
+    @Override
+    public <S extends RevokedToken> List<S> findAll(Example<S> example, Sort sort) {
+        return List.of();
+    }
+
+    @Override
+    public <S extends RevokedToken> Page<S> findAll(Example<S> example, Pageable pageable) {
+        return null;
+    }
+
+    @Override
+    public <S extends RevokedToken> long count(Example<S> example) {
+        return 0;
+    }
+
+    @Override
+    public <S extends RevokedToken> boolean exists(Example<S> example) {
+        return false;
+    }
+
+    @Override
+    public <S extends RevokedToken, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        return null;
+    }
+
+    @Override
+    public <S extends RevokedToken> S save(S entity) {
+        tokens.removeIf(token -> token.getTokenId().equals(entity.getTokenId()));
+        tokens.add(entity);
+        return entity;
+    }
+
+    @Override
+    public <S extends RevokedToken> List<S> saveAll(Iterable<S> entities) {
+        return List.of();
+    }
+
+    @Override
+    public Optional<RevokedToken> findById(String s) {
+        return tokens.stream()
+                .filter(token -> token.getTokenId().equals(s))
+                .findFirst();
+    }
+
+    @Override
+    public boolean existsById(String s) {
+        return false;
+    }
+
+    @Override
+    public List<RevokedToken> findAll() {
+        return tokens;
+    }
+
+    @Override
+    public List<RevokedToken> findAllById(Iterable<String> strings) {
+        return List.of();
+    }
+
+    @Override
+    public long count() {
+        return 0;
+    }
+
+    @Override
+    public void deleteById(String s) {
+
+    }
+
+    @Override
+    public void delete(RevokedToken entity) {
+
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> strings) {
+
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends RevokedToken> entities) {
+
+    }
+
+    @Override
+    public void deleteAll() {
+
+    }
+
+    @Override
+    public List<RevokedToken> findAll(Sort sort) {
+        return List.of();
+    }
+
+    @Override
+    public Page<RevokedToken> findAll(Pageable pageable) {
+        return null;
+    }
+
+    public void initTestData() {
+        tokens.clear();
+    }
+
+}
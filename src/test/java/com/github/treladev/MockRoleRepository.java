@@ -130,7 +130,7 @@ public class MockRoleRepository implements RoleRepository {
 
     @Override
     public List<Role> findAll() {
-        return List.of();
+        return roles;
     }
 
     @Override
@@ -187,6 +187,9 @@ public class MockRoleRepository implements RoleRepository {
                 new Role("ROLE_MODERATOR"),
                 new Role("ROLE_ADMIN")
         ));
+        for (int i = 0; i < roles.size(); i++) {
+            roles.get(i).setId((long) i + 1);
+        }
         currentId = 5L;
     }
 
@@ -1,23 +1,42 @@
 package com.github.treladev;
 
+import com.github.treladev.dto.UserSummaryDto;
+import com.github.treladev.model.DeletedUser;
 import com.github.treladev.model.Role;
 import com.github.treladev.model.User;
+import com.github.treladev.repository.UserFilter;
 import com.github.treladev.repository.UserRepository;
+import com.github.treladev.repository.UserTokenVersion;
+import com.github.treladev.service.UserService;
+import jakarta.persistence.EntityNotFoundException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.repository.query.FluentQuery;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 public class MockUserRepository implements UserRepository {
 private final List<User> users = new ArrayList<>();
+private final List<DeletedUser> deletedUsers = new ArrayList<>();
 private Long currentId = 1L;
+private int findByIdCalls;
+private int findByUsernameCalls;
+private final Set<Long> evictedIds = new HashSet<>();
 
 
 
@@ -25,6 +44,7 @@ private Long currentId = 1L;
 
 @Override
 public Optional<User> findById(Long id){
+    findByIdCalls++;
     return users.stream().filter(user-> user.getId().equals(id)).findFirst();
 }
 
@@ -36,7 +56,125 @@ public Optional<User> findById(Long id){
 
     @Override
     public Optional<User> findByUsername(String username) {
-        return users.stream().filter(user-> user.getUsername().equals(username)).findFirst();
+        findByUsernameCalls++;
+        return users.stream().filter(user-> user.getUsername().equals(User.normalizeUsername(username))).findFirst();
+    }
+
+    @Override
+    public List<UserSummaryDto> findSummariesAfter(long afterId, Limit limit) {
+        return users.stream()
+                .filter(user -> user.getId() > afterId)
+                .sorted(Comparator.comparing(User::getId))
+                .limit(limit.max())
+                .map(MockUserRepository::toSummary)
+                .toList();
+    }
+
+    @Override
+    public void forEachUserSummary(Consumer<? super UserSummaryDto> action) {
+        users.stream().sorted(Comparator.comparing(User::getId)).map(MockUserRepository::toSummary).forEach(action);
+    }
+
+    private static UserSummaryDto toSummary(User user) {
+        return new UserSummaryDto(user.getId(), user.getUsername(), user.getRole().getName(), user.isEnabled(),
+                user.isAccountNonLocked(), user.isAccountNonExpired(), user.isCredentialsNonExpired());
+    }
+
+    @Override
+    public List<String> findExistingUsernames(Collection<String> usernames) {
+        return users.stream().map(User::getUsername).filter(usernames::contains).toList();
+    }
+
+    // All or nothing, like the transaction of the real implementation
+    @Override
+    public void insertAll(List<User> newUsers) {
+        for (User user : newUsers) {
+            if (findByUsername(user.getUsername()).isPresent()) {
+                throw usernameConflict();
+            }
+        }
+        newUsers.forEach(this::saveAndFlush);
+    }
+
+    @Override
+    public List<UserTokenVersion> findTokenVersionsMatching(UserFilter filter) {
+        return users.stream().filter(user -> matches(user, filter))
+                .map(user -> new UserTokenVersion(user.getId(), user.getUsername(), user.getTokenVersion())).toList();
+    }
+
+    @Override
+    public List<UserTokenVersion> findTokenVersionsRaisedSince(Instant since) {
+        return users.stream()
+                .filter(user -> user.getTokenVersionRaisedAt() != null && user.getTokenVersionRaisedAt().isAfter(since))
+                .map(user -> new UserTokenVersion(user.getId(), user.getUsername(), user.getTokenVersion())).toList();
+    }
+
+    @Override
+    public void evictFromCache(Collection<Long> ids) {
+        evictedIds.addAll(ids);
+    }
+
+    @Override
+    public List<Long> findIdsDeletedSince(Instant since) {
+        return deletedUsers.stream()
+                .filter(deletedUser -> deletedUser.getDeletedAt().isAfter(since))
+                .map(DeletedUser::getUserId).toList();
+    }
+
+    @Override
+    public int deleteDeletionsBefore(Instant before) {
+        int sizeBefore = deletedUsers.size();
+        deletedUsers.removeIf(deletedUser -> !deletedUser.getDeletedAt().isAfter(before));
+        return sizeBefore - deletedUsers.size();
+    }
+
+    @Override
+    public List<UserTokenVersion> lockTokenVersionsMatching(UserFilter filter) {
+        return findTokenVersionsMatching(filter);
+    }
+
+    @Override
+    public int deleteMatching(UserFilter filter) {
+        Instant now = Instant.now();
+        users.stream().filter(user -> matches(user, filter))
+                .forEach(user -> deletedUsers.add(new DeletedUser(user.getId(), now)));
+        int sizeBefore = users.size();
+        users.removeIf(user -> matches(user, filter));
+        return sizeBefore - users.size();
+    }
+
+    @Override
+    public int updateEnabledMatching(UserFilter filter, boolean enabled) {
+        List<User> matching = users.stream().filter(user -> matches(user, filter)).toList();
+        matching.forEach(user -> {
+            user.setEnabled(enabled);
+            if (!enabled) {
+                user.setTokenVersion(user.getTokenVersion() + 1);
+            }
+            user.setTokenVersionRaisedAt(Instant.now());
+        });
+        return matching.size();
+    }
+
+    @Override
+    public int updateRoleMatching(UserFilter filter, Role role) {
+        List<User> matching = users.stream().filter(user -> matches(user, filter)).toList();
+        matching.forEach(user -> {
+            user.setRole(role);
+            user.setTokenVersion(user.getTokenVersion() + 1);
+            user.setTokenVersionRaisedAt(Instant.now());
+        });
+        return matching.size();
+    }
+
+    // The test roles have no IDs, so roles are compared by name
+    private static boolean matches(User user, UserFilter filter) {
+        String roleName = user.getRole() == null ? null : user.getRole().getName();
+        return (filter.ids() == null || filter.ids().contains(user.getId()))
+                && (filter.role() == null || filter.role().getName().equals(roleName))
+                && (filter.enabled() == null || filter.enabled() == user.isEnabled())
+                && (filter.usernamePrefix() == null || user.getUsername().startsWith(filter.usernamePrefix()))
+                && (filter.excludedRole() == null || !filter.excludedRole().getName().equals(roleName));
     }
 
     @Override
@@ -44,9 +182,24 @@ public Optional<User> findById(Long id){
 
     }
 
+    // Emulates the unique username index: inserts new users, keeps updated ones in place
     @Override
     public <S extends User> S saveAndFlush(S entity) {
-        return null;
+        boolean usernameTaken = users.stream()
+                .anyMatch(user -> user != entity && user.getUsername().equals(entity.getUsername()));
+        if (usernameTaken) {
+            throw usernameConflict();
+        }
+        if (!users.contains(entity)) {
+            entity.setId(++currentId);
+            users.add(entity);
+        }
+        return entity;
+    }
+
+    private static DataIntegrityViolationException usernameConflict() {
+        return new DataIntegrityViolationException("could not execute statement", new ConstraintViolationException(
+                "duplicate key value violates unique constraint", null, UserService.USERNAME_UNIQUE_INDEX));
     }
 
     @Override
@@ -80,8 +233,8 @@ public Optional<User> findById(Long id){
     }
 
     @Override
-    public User getReferenceById(Long aLong) {
-        return null;
+    public User getReferenceById(Long id) {
+        return findById(id).orElseThrow(() -> new EntityNotFoundException("User not found with id: " + id));
     }
 
     @Override
@@ -186,8 +339,26 @@ public Optional<User> findById(Long id){
     }
 
 
+    // Number of lookups by ID since the test data was initialized
+    public int findByIdCalls() {
+        return findByIdCalls;
+    }
+
+    public int findByUsernameCalls() {
+        return findByUsernameCalls;
+    }
+
+    // IDs evicted from the second-level cache since the test data was initialized
+    public Set<Long> evictedIds() {
+        return evictedIds;
+    }
+
     public void initTestData() {
+        findByIdCalls = 0;
+        findByUsernameCalls = 0;
+        evictedIds.clear();
         users.clear();
+        deletedUsers.clear();
         users.addAll(List.of(
                 new User(1L, "admin", "admin", new Role("ROLE_ADMIN")),
                 new User(2L, "moderator", "moderator", new Role("ROLE_MODERATOR")),
@@ -0,0 +1,63 @@
+package com.github.treladev;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.treladev.exception.InvalidRefreshTokenException;
+import com.github.treladev.exception.NoSuchRoleException;
+import com.github.treladev.exception.ProblemType;
+import com.github.treladev.exception.UnknownUsernameException;
+import com.github.treladev.exception.UsernameAlreadyInUseException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProblemTypeTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Should render every problem type as an RFC 7807 body")
+    void body_shouldContainTypeTitleStatusAndDetail() throws Exception {
+        for (ProblemType problemType : ProblemType.values()) {
+            JsonNode body = objectMapper.readTree(problemType.body("Some detail."));
+
+            assertEquals(problemType.type(), body.get("type").asText());
+            assertEquals(problemType.title(), body.get("title").asText());
+            assertEquals(problemType.status().value(), body.get("status").asInt());
+            assertEquals("Some detail.", body.get("detail").asText());
+        }
+    }
+
+    @Test
+    @DisplayName("Should escape user input in the detail")
+    void body_shouldEscapeDetail() throws Exception {
+        String role = "ROLE_\"quoted\"\n\\ünicode";
+
+        JsonNode body = objectMapper.readTree(new NoSuchRoleException(role).problemBody());
+
+        assertEquals("No such role: " + role, body.get("detail").asText());
+    }
+
+    @Test
+    @DisplayName("Should reuse the precomputed body of a fixed detail")
+    void body_shouldReuseFixedBodies() {
+        byte[] first = new InvalidRefreshTokenException(InvalidRefreshTokenException.EXPIRED).problemBody();
+        byte[] second = new InvalidRefreshTokenException(InvalidRefreshTokenException.EXPIRED).problemBody();
+
+        assertSame(first, second);
+    }
+
+    @Test
+    @DisplayName("Should not record stack traces for domain exceptions")
+    void domainExceptions_shouldBeStackless() {
+        UsernameAlreadyInUseException inUse = new UsernameAlreadyInUseException("admin");
+
+        assertEquals(0, inUse.getStackTrace().length);
+        assertEquals(0, new UnknownUsernameException().getStackTrace().length);
+        assertEquals("Username 'admin' is already in use.", inUse.getMessage());
+        // Suppression is disabled as well
+        inUse.addSuppressed(new IllegalStateException());
+        assertEquals(0, inUse.getSuppressed().length);
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.treladev;
+
+import com.github.treladev.exception.InvalidRefreshTokenException;
+import com.github.treladev.model.RefreshToken;
+import com.github.treladev.model.User;
+import com.github.treladev.repository.HibernateCacheConfig;
+import com.github.treladev.repository.RefreshTokenRepository;
+import com.github.treladev.repository.UserRepository;
+import com.github.treladev.security.jwt.JwtUtil;
+import com.github.treladev.service.RefreshTokenService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Rotates against the Flyway schema, every call commits on its own like in production
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({RefreshTokenService.class, JwtUtil.class, HibernateCacheConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class RefreshTokenRotationTest {
+
+    private static final int CONCURRENT_REQUESTS = 8;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void tearDown() {
+        refreshTokenRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Concurrent refreshes with the same token should succeed once and revoke the family")
+    void rotate_shouldLetOnlyOneConcurrentRequestUseTheToken() throws Exception {
+        String refreshToken = refreshTokenService.issue(user().getId());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<RefreshTokenService.TokenPair>> results = new ArrayList<>();
+
+        try (ExecutorService clients = Executors.newFixedThreadPool(CONCURRENT_REQUESTS)) {
+            for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+                results.add(clients.submit(() -> {
+                    start.await();
+                    return refreshTokenService.rotate(refreshToken);
+                }));
+            }
+            start.countDown();
+        }
+
+        List<RefreshTokenService.TokenPair> rotated = new ArrayList<>();
+        for (Future<RefreshTokenService.TokenPair> result : results) {
+            try {
+                rotated.add(result.get());
+            } catch (ExecutionException e) {
+                InvalidRefreshTokenException rejected = assertInstanceOf(InvalidRefreshTokenException.class, e.getCause());
+                assertEquals(InvalidRefreshTokenException.ALREADY_USED, rejected.getMessage());
+            }
+        }
+        assertEquals(1, rotated.size());
+        // The reuse revoked the token handed to the winner as well
+        InvalidRefreshTokenException revoked = assertThrows(InvalidRefreshTokenException.class,
+                () -> refreshTokenService.rotate(rotated.get(0).refreshToken()));
+        assertEquals(InvalidRefreshTokenException.ALREADY_USED, revoked.getMessage());
+    }
+
+    @Test
+    @DisplayName("Purging should delete expired tokens and keep used ones until they expire")
+    void purgeExpired_shouldDeleteOnlyExpiredTokens() {
+        User user = user();
+        refreshTokenRepository.save(new RefreshToken("expired-hash", "expired-family", user, Instant.now().minusSeconds(1)));
+        String usedToken = refreshTokenService.issue(user.getId());
+        refreshTokenService.rotate(usedToken);
+
+        refreshTokenService.purgeExpired();
+
+        List<RefreshToken> remaining = refreshTokenRepository.findAll();
+        assertEquals(2, remaining.size());
+        assertTrue(remaining.stream().noneMatch(token -> token.getTokenHash().equals("expired-hash")));
+        assertTrue(remaining.stream().anyMatch(RefreshToken::isUsed));
+    }
+
+    private User user() {
+        return userRepository.findByUsername("user1").orElseThrow();
+    }
+}
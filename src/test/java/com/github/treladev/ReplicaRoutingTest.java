@@ -0,0 +1,155 @@
+package com.github.treladev;
+
+import com.github.treladev.model.User;
+import com.github.treladev.repository.HibernateCacheConfig;
+import com.github.treladev.repository.ReplicaRoutingConfig;
+import com.github.treladev.repository.RoleRepository;
+import com.github.treladev.repository.UserFilter;
+import com.github.treladev.repository.UserRepository;
+import com.github.treladev.security.CustomUserDetailsService;
+import com.github.treladev.security.jwt.TokenVersionTable;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Two in-memory databases with the same schema; only the replica knows 'replica-only', only the primary gets new users
+@DataJpaTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingTest.PRIMARY_URL,
+        "datasource.replica-urls=" + ReplicaRoutingTest.REPLICA_URL,
+        "datasource.read-your-writes-window=1m"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({ReplicaRoutingConfig.class, HibernateCacheConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ReplicaRoutingTest {
+
+    private static final String H2_OPTIONS = ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary" + H2_OPTIONS;
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica" + H2_OPTIONS;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeAll
+    static void createReplica() throws Exception {
+        Flyway.configure()
+                .dataSource(REPLICA_URL, "sa", "")
+                .locations("classpath:db/migration", "classpath:db/vendor/h2")
+                .load()
+                .migrate();
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("insert into users (id, username, password, role_id) "
+                    + "values (nextval('users_id_seq'), 'replica-only', 'secret', 1)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+        userRepository.deleteMatching(new UserFilter(null, null, null, "routing-", null));
+    }
+
+    @Test
+    @DisplayName("Read-only transactions should read from the replica, read-write transactions from the primary")
+    void readOnlyTransactions_shouldUseReplica() {
+        assertEquals(List.of("replica-only"), readOnly(() -> userRepository.findExistingUsernames(List.of("replica-only"))));
+        assertEquals(List.of(), readWrite(() -> userRepository.findExistingUsernames(List.of("replica-only"))));
+        // Repository reads outside a transaction run in their own read-only one
+        assertTrue(userRepository.findByUsername("replica-only").isPresent());
+    }
+
+    @Test
+    @DisplayName("After a write, later reads of the same request should go to the primary")
+    void readsAfterWrite_shouldUsePrimaryForRestOfRequest() {
+        startRequest();
+        createUser("routing-fresh");
+
+        assertEquals(List.of("routing-fresh"), readOnly(() -> userRepository.findExistingUsernames(List.of("routing-fresh"))));
+
+        // Anonymous requests have no session to carry the pin over
+        startRequest();
+        assertEquals(List.of(), readOnly(() -> userRepository.findExistingUsernames(List.of("routing-fresh"))));
+    }
+
+    @Test
+    @DisplayName("After a write, later requests of the same user should read from the primary, other users from the replica")
+    void readsAfterWrite_shouldUsePrimaryForSameUser() {
+        authenticateAs("alice");
+        startRequest();
+        createUser("routing-alice");
+
+        startRequest();
+        assertEquals(List.of("routing-alice"), readOnly(() -> userRepository.findExistingUsernames(List.of("routing-alice"))));
+
+        authenticateAs("bob");
+        assertEquals(List.of(), readOnly(() -> userRepository.findExistingUsernames(List.of("routing-alice"))));
+    }
+
+    @Test
+    @DisplayName("Login should find a user the replica does not have yet")
+    void loadUserByUsername_shouldFallBackToPrimary() {
+        createUser("routing-new");
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService(userRepository, new TokenVersionTable(),
+                new SimpleMeterRegistry());
+
+        assertEquals("routing-new", userDetailsService.loadUserByUsername("routing-new").getUsername());
+        assertEquals("replica-only", userDetailsService.loadUserByUsername("replica-only").getUsername());
+    }
+
+    private void createUser(String username) {
+        userRepository.insertAll(List.of(new User(username, "secret", roleRepository.findByName("ROLE_USER").orElseThrow())));
+    }
+
+    private <T> T readOnly(Supplier<T> action) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template.execute(status -> action.get());
+    }
+
+    private <T> T readWrite(Supplier<T> action) {
+        return new TransactionTemplate(transactionManager).execute(status -> action.get());
+    }
+
+    private static void startRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    private static void authenticateAs(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken(username, null, "ROLE_USER"));
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.treladev;
+
+import com.github.treladev.security.KnownRole;
+import com.github.treladev.security.KnownRoleHierarchy;
+import com.github.treladev.security.MethodSecurityConfig;
+import com.github.treladev.security.RequireRole;
+import com.github.treladev.security.RoleAuthorities;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequireRoleAuthorizationTest {
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Each role should be granted by itself and every role above it")
+    void hasRoleOrHigher_shouldFollowHierarchy() {
+        assertTrue(KnownRoleHierarchy.hasRoleOrHigher(RoleAuthorities.forClaim("ROLE_ADMIN"), KnownRole.GUEST));
+        assertTrue(KnownRoleHierarchy.hasRoleOrHigher(RoleAuthorities.forClaim("ROLE_MODERATOR"), KnownRole.USER));
+        assertTrue(KnownRoleHierarchy.hasRoleOrHigher(RoleAuthorities.forClaim("ROLE_USER"), KnownRole.USER));
+        assertFalse(KnownRoleHierarchy.hasRoleOrHigher(RoleAuthorities.forClaim("ROLE_GUEST"), KnownRole.USER));
+        assertFalse(KnownRoleHierarchy.hasRoleOrHigher(RoleAuthorities.forClaim("ROLE_MODERATOR"), KnownRole.ADMIN));
+        assertFalse(KnownRoleHierarchy.hasRoleOrHigher(RoleAuthorities.EMPTY, KnownRole.GUEST));
+    }
+
+    @Test
+    @DisplayName("Should admit callers holding the required role or a higher one, on methods and classes")
+    void requireRole_shouldGuardAnnotatedMethodsAndClasses() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(Guarded.class)) {
+            Reports reports = context.getBean(Reports.class);
+            AdminTools adminTools = context.getBean(AdminTools.class);
+
+            authenticateAs("ROLE_MODERATOR");
+            assertEquals("read", reports.read());
+            assertEquals("moderated", reports.moderate());
+            assertThrows(AccessDeniedException.class, adminTools::reset);
+
+            authenticateAs("ROLE_GUEST");
+            assertThrows(AccessDeniedException.class, reports::read);
+
+            authenticateAs("ROLE_ADMIN");
+            assertEquals("reset", adminTools.reset());
+            assertEquals("moderated", reports.moderate());
+        }
+    }
+
+    private static void authenticateAs(String role) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("tester", null, role));
+    }
+
+    @Configuration
+    @Import(MethodSecurityConfig.class)
+    static class Guarded {
+
+        @Bean
+        Reports reports() {
+            return new Reports();
+        }
+
+        @Bean
+        AdminTools adminTools() {
+            return new AdminTools();
+        }
+    }
+
+    static class Reports {
+
+        @RequireRole(KnownRole.USER)
+        public String read() {
+            return "read";
+        }
+
+        @RequireRole(KnownRole.MODERATOR)
+        public String moderate() {
+            return "moderated";
+        }
+    }
+
+    @RequireRole(KnownRole.ADMIN)
+    static class AdminTools {
+
+        public String reset() {
+            return "reset";
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.treladev;
+
+import com.github.treladev.security.AuthoritySet;
+import com.github.treladev.security.KnownRole;
+import com.github.treladev.security.RoleAuthorities;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RoleAuthoritiesTest {
+
+    @Test
+    @DisplayName("Should return the same shared instance for the same known roles claim")
+    void forClaim_shouldReturnCanonicalSetForKnownRoles() {
+        AuthoritySet first = RoleAuthorities.forClaim("ROLE_ADMIN");
+        AuthoritySet second = RoleAuthorities.forClaim("ROLE_ADMIN");
+        AuthoritySet fromAuthorities = RoleAuthorities.of(List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+
+        assertSame(first, second);
+        assertSame(first, fromAuthorities);
+        assertSame(first, RoleAuthorities.of(KnownRole.ADMIN.bit()));
+    }
+
+    @Test
+    @DisplayName("Should answer role checks from the precomputed mask")
+    void hasRole_shouldMatchRolesInClaim() {
+        AuthoritySet authorities = RoleAuthorities.forClaim("ROLE_MODERATOR,ROLE_USER");
+
+        assertTrue(authorities.hasRole(KnownRole.MODERATOR));
+        assertTrue(authorities.hasRole(KnownRole.USER));
+        assertFalse(authorities.hasRole(KnownRole.ADMIN));
+        assertTrue(authorities.contains(new SimpleGrantedAuthority("ROLE_USER")));
+        assertEquals(2, authorities.size());
+    }
+
+    @Test
+    @DisplayName("Should keep authorities that are not one of the known roles")
+    void forClaim_shouldKeepUnknownAuthorities() {
+        AuthoritySet authorities = RoleAuthorities.forClaim("ROLE_AUDITOR,ROLE_USER");
+
+        assertTrue(authorities.contains(new SimpleGrantedAuthority("ROLE_AUDITOR")));
+        assertTrue(authorities.hasRole(KnownRole.USER));
+        assertEquals("ROLE_AUDITOR,ROLE_USER", authorities.claim());
+    }
+}
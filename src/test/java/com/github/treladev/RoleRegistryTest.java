@@ -0,0 +1,61 @@
+package com.github.treladev;
+
+import com.github.treladev.model.Role;
+import com.github.treladev.service.RoleRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RoleRegistryTest {
+
+    private final AtomicInteger findAllCalls = new AtomicInteger();
+
+    // Counts how often the registry goes to the repository
+    private final MockRoleRepository roleRepository = new MockRoleRepository() {
+        @Override
+        public List<Role> findAll() {
+            findAllCalls.incrementAndGet();
+            return super.findAll();
+        }
+    };
+
+    private RoleRegistry roleRegistry;
+
+    @BeforeEach
+    void setUp() {
+        roleRepository.initTestData();
+        roleRegistry = new RoleRegistry(roleRepository);
+        roleRegistry.load();
+    }
+
+    @Test
+    @DisplayName("Should resolve roles by name and by ID from memory, returning the same instance")
+    void findByNameAndId_shouldServeSharedRolesFromMemory() {
+        Role byName = roleRegistry.findByName("ROLE_ADMIN").orElseThrow();
+        Role byId = roleRegistry.findById(byName.getId()).orElseThrow();
+
+        assertSame(byName, byId);
+        assertSame(byName, roleRegistry.findByName("ROLE_ADMIN").orElseThrow());
+        assertTrue(roleRegistry.findByName("ROLE_UNKNOWN").isEmpty());
+        assertTrue(roleRegistry.findByName(null).isEmpty());
+        assertEquals(1, findAllCalls.get());
+    }
+
+    @Test
+    @DisplayName("Should pick up roles added to the database only after a reload")
+    void reload_shouldPickUpAddedRoles() {
+        Role auditor = new Role("ROLE_AUDITOR");
+        auditor.setId(5L);
+        roleRepository.findAll().add(auditor);
+
+        assertTrue(roleRegistry.findByName("ROLE_AUDITOR").isEmpty());
+        assertEquals(5, roleRegistry.reload());
+        assertSame(auditor, roleRegistry.findByName("ROLE_AUDITOR").orElseThrow());
+        assertSame(auditor, roleRegistry.findById(5L).orElseThrow());
+    }
+}
@@ -0,0 +1,199 @@
+package com.github.treladev;
+
+import com.github.treladev.repository.UserFilter;
+import com.github.treladev.repository.UserRepository;
+import com.github.treladev.security.CaffeineUserCache;
+import com.github.treladev.security.jwt.VerifiedTokenCache;
+import com.github.treladev.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import net.ttddyy.dsproxy.QueryType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The whole application against the Flyway schema in H2, counting the SQL statements of each endpoint.
+// Caches are emptied before each request, so the budgets hold for the first request of a user.
+// Not on the "test" profile: its mock repositories would replace the real ones.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statement-budget;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "logging.level.org.springframework.security=INFO",
+        // The counter sees every thread; keeps the periodic sync of token revocations out of the budgets
+        "jwt.sync-interval=PT1H"
+})
+@AutoConfigureMockMvc
+@Import(SqlStatementCountingConfig.class)
+public class SqlStatementBudgetTest {
+
+    private static final String PREFIX = "budget-";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SqlStatementCounter sqlStatements;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CaffeineUserCache userCache;
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    private String adminToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        adminToken = login("admin", "admin").andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("Authorization");
+        emptyCaches();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteMatching(new UserFilter(null, null, null, PREFIX, null));
+    }
+
+    @Test
+    @DisplayName("GET /users - should read one page with exactly one select")
+    void getUsers_shouldExecuteOneSelect() throws Exception {
+        sqlStatements.reset();
+
+        mockMvc.perform(get("/users").header("Authorization", adminToken)).andExpect(status().isOk());
+
+        sqlStatements.assertAtMost(1);
+        sqlStatements.assertExactly(1, QueryType.SELECT);
+    }
+
+    @Test
+    @DisplayName("GET /users/stream - should stream all users with exactly one select")
+    void streamUsers_shouldExecuteOneSelect() throws Exception {
+        sqlStatements.reset();
+
+        MvcResult result = mockMvc.perform(get("/users/stream").header("Authorization", adminToken)).andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        sqlStatements.assertAtMost(1);
+        sqlStatements.assertExactly(1, QueryType.SELECT);
+    }
+
+    @Test
+    @DisplayName("PUT /users/{id} - should load the user once, write it with one update and revoke its refresh tokens with another")
+    void updateUser_shouldLoadUserOnce() throws Exception {
+        Long id = registerUser(PREFIX + "updated");
+        sqlStatements.reset();
+
+        mockMvc.perform(put("/users/" + id)
+                        .header("Authorization", adminToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\": \"" + PREFIX + "renamed\", \"password\": \"secret\", \"role\": \"ROLE_MODERATOR\"}"))
+                .andExpect(status().isOk());
+
+        sqlStatements.assertAtMost(3);
+        sqlStatements.assertExactly(1, QueryType.SELECT);
+        sqlStatements.assertExactly(2, QueryType.UPDATE);
+    }
+
+    @Test
+    @DisplayName("DELETE /users/{id} - should read the token version, record and delete the user without loading it")
+    void deleteUser_shouldNotLoadUser() throws Exception {
+        Long id = registerUser(PREFIX + "deleted");
+        sqlStatements.reset();
+
+        mockMvc.perform(delete("/users/" + id).header("Authorization", adminToken)).andExpect(status().isOk());
+
+        sqlStatements.assertAtMost(3);
+        sqlStatements.assertExactly(1, QueryType.SELECT);
+        // INSERT ... SELECT into deleted_users, for the other instances
+        sqlStatements.assertExactly(1, QueryType.INSERT);
+        sqlStatements.assertExactly(1, QueryType.DELETE);
+    }
+
+    @Test
+    @DisplayName("POST /register - should insert the user without checking the username first")
+    void register_shouldInsertWithoutLookup() throws Exception {
+        sqlStatements.reset();
+
+        mockMvc.perform(post("/register")
+                        .servletPath("/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\": \"" + PREFIX + "member\", \"password\": \"secret\"}"))
+                .andExpect(status().isOk());
+
+        // The select is the sequence call of a new block of IDs, at most once per 50 users
+        sqlStatements.assertAtMost(2);
+        sqlStatements.assertExactly(1, QueryType.INSERT);
+    }
+
+    @Test
+    @DisplayName("POST /login - should load the user once and insert the refresh token")
+    void login_shouldLoadUserOnce() throws Exception {
+        sqlStatements.reset();
+
+        login("admin", "admin").andExpect(status().isOk());
+
+        sqlStatements.assertAtMost(2);
+        sqlStatements.assertExactly(1, QueryType.SELECT);
+        sqlStatements.assertExactly(1, QueryType.INSERT);
+    }
+
+    @Test
+    @DisplayName("POST /token/refresh - should find the refresh token with its user and rotate it")
+    void refresh_shouldFindTokenWithUser() throws Exception {
+        String refreshToken = login("admin", "admin").andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("Refresh-Token");
+        emptyCaches();
+        sqlStatements.reset();
+
+        mockMvc.perform(post("/token/refresh")
+                        .servletPath("/token/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\": \"" + refreshToken + "\"}"))
+                .andExpect(status().isOk());
+
+        sqlStatements.assertAtMost(3);
+        sqlStatements.assertExactly(1, QueryType.SELECT);
+    }
+
+    private ResultActions login(String username, String password) throws Exception {
+        return mockMvc.perform(post("/login")
+                .servletPath("/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\": \"" + username + "\", \"password\": \"" + password + "\"}"));
+    }
+
+    private Long registerUser(String username) {
+        userService.registerUser(username, "secret");
+        Long id = userRepository.findByUsername(username).orElseThrow().getId();
+        emptyCaches();
+        return id;
+    }
+
+    private void emptyCaches() {
+        entityManagerFactory.getCache().evictAll();
+        userCache.invalidateAll();
+        verifiedTokenCache.invalidateAll();
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.treladev;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Records every SQL statement sent through the application's DataSource (see {@link SqlStatementCountingConfig}),
+ * so tests can put a budget on the statements of a request:
+ *
+ * - Call {@link #reset()} right before the request and assert afterwards.
+ * - A JDBC batch counts as one statement, like one round trip to the database.
+ * - Statements of every thread are recorded, including those of async requests.
+ * - Failed assertions list the recorded statements, which usually points straight at the extra query.
+ */
+public class SqlStatementCounter implements QueryExecutionListener {
+
+    private final List<String> statements = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        queryInfoList.forEach(queryInfo -> statements.add(queryInfo.getQuery()));
+    }
+
+    public void reset() {
+        statements.clear();
+    }
+
+    public List<String> statements() {
+        return List.copyOf(statements);
+    }
+
+    public long count(QueryType type) {
+        return statements.stream().filter(statement -> QueryUtils.getQueryType(statement) == type).count();
+    }
+
+    public void assertAtMost(int maximum) {
+        List<String> executed = statements();
+        assertTrue(executed.size() <= maximum,
+                () -> "Expected at most " + maximum + " statements, but " + executed.size() + " were executed: " + format(executed));
+    }
+
+    public void assertExactly(int expected, QueryType type) {
+        List<String> executed = statements();
+        long actual = executed.stream().filter(statement -> QueryUtils.getQueryType(statement) == type).count();
+        assertEquals(expected, actual, () -> "Unexpected number of " + type + " statements: " + format(executed));
+    }
+
+    private static String format(List<String> executed) {
+        return executed.isEmpty() ? "none" : "\n  " + String.join("\n  ", executed);
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.treladev;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+
+/**
+ * Sends the statements of the application's DataSource through a {@link SqlStatementCounter}.
+ *
+ * Only the `dataSource` bean is wrapped: the pools behind it (see ReplicaRoutingConfig) would count the
+ * same statements again.
+ */
+@TestConfiguration
+public class SqlStatementCountingConfig {
+
+    @Bean
+    public static SqlStatementCounter sqlStatementCounter() {
+        return new SqlStatementCounter();
+    }
+
+    @Bean
+    public static BeanPostProcessor statementCountingDataSourcePostProcessor(SqlStatementCounter sqlStatementCounter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name("statement-counting")
+                            .listener(sqlStatementCounter)
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -1,43 +1,55 @@
 package com.github.treladev;
 
+import com.github.treladev.repository.RefreshTokenRepository;
+import com.github.treladev.repository.RevokedTokenRepository;
 import com.github.treladev.repository.RoleRepository;
 import com.github.treladev.repository.UserRepository;
+import com.github.treladev.security.CaffeineUserCache;
 import com.github.treladev.security.CustomUserDetailsService;
+import com.github.treladev.security.MethodSecurityConfig;
 import com.github.treladev.security.SecurityConfig;
 import com.github.treladev.security.UserUpdatePermissionEvaluator;
 import com.github.treladev.security.jwt.*;
+import com.github.treladev.service.RefreshTokenService;
+import com.github.treladev.service.RoleRegistry;
+import com.github.treladev.service.TokenRevocationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.mockito.Mock;
 
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.*;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.CachingUserDetailsService;
 import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
-import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.NoOpPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.authentication.logout.HttpStatusReturningLogoutSuccessHandler;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
 import java.util.List;
 
 
-@EnableGlobalMethodSecurity(prePostEnabled = true)
 @Configuration
 @Profile("test")
 @Import({JwtUtil.class, JWTCustomUsernamePasswordAuthenticationFilter.class, JwtAuthenticationProvider.class,
-        JwtFilter.class, JwtAuthenticationSuccessHandler.class,JwtAuthenticationFailureHandler.class, UserUpdatePermissionEvaluator.class})
+        JwtFilter.class, JwtAuthenticationSuccessHandler.class,JwtAuthenticationFailureHandler.class, UserUpdatePermissionEvaluator.class,
+        VerifiedTokenCache.class, RefreshTokenService.class, TokenRevocationStore.class, TokenVersionTable.class,
+        TokenRevocationService.class, JwtLogoutHandler.class, RoleRegistry.class, MethodSecurityConfig.class, CaffeineUserCache.class})
 public class TestSecurityConfig{
 
     private final UserRepository userRepository;
     private final JwtAuthenticationProvider jwtAuthenticationProvider;
     private final JWTCustomUsernamePasswordAuthenticationFilter jwtCustomUsernamePasswordAuthenticationFilter;
     private final JwtFilter jwtFilter;
+    private final JwtLogoutHandler jwtLogoutHandler;
 
 
     @Bean
@@ -53,6 +65,22 @@ public class TestSecurityConfig{
         return mockedRepository;
     }
 
+    @Bean
+    public RefreshTokenRepository refreshTokenRepository(){
+        return new MockRefreshTokenRepository();
+    }
+
+    @Bean
+    public RevokedTokenRepository revokedTokenRepository(){
+        return new MockRevokedTokenRepository();
+    }
+
+    // Lets tests read the recorded metrics; static, since the filters this configuration depends on need it
+    @Bean
+    public static MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
 
     /**
      * Constructor for injecting dependencies.
@@ -60,12 +88,14 @@ public class TestSecurityConfig{
     public TestSecurityConfig(@Lazy UserRepository userRepository,
                           JWTCustomUsernamePasswordAuthenticationFilter jwtCustomUsernamePasswordAuthenticationFilter,
                           JwtAuthenticationProvider jwtAuthenticationProvider,
-                          @Lazy JwtFilter jwtFilter) {
+                          @Lazy JwtFilter jwtFilter,
+                          JwtLogoutHandler jwtLogoutHandler) {
 
         this.userRepository = userRepository;
         this.jwtAuthenticationProvider = jwtAuthenticationProvider;
         this.jwtCustomUsernamePasswordAuthenticationFilter = jwtCustomUsernamePasswordAuthenticationFilter;
         this.jwtFilter = jwtFilter;
+        this.jwtLogoutHandler = jwtLogoutHandler;
     }
 
     /**
@@ -75,6 +105,7 @@ public class TestSecurityConfig{
      * - Allows public access to `/register` and `/login`.
      * - Requires authentication for all other endpoints.
      * - Adds JWT-based authentication filters.
+     * - Revokes the JWT token on `/logout`.
      */
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -86,6 +117,11 @@ public class TestSecurityConfig{
                 .requestMatchers("/login/**").permitAll()
                 .anyRequest().permitAll());
 
+        // Logging out revokes the presented JWT token
+        http.logout(logout -> logout
+                .addLogoutHandler(jwtLogoutHandler)
+                .logoutSuccessHandler(new HttpStatusReturningLogoutSuccessHandler()));
+
         // Add custom authentication filters
         http.addFilterAt(jwtCustomUsernamePasswordAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
         http.addFilterBefore(jwtFilter, JWTCustomUsernamePasswordAuthenticationFilter.class);
@@ -97,20 +133,24 @@ public class TestSecurityConfig{
      * Custom UserDetailsService for loading user details from the database.
      */
     @Bean
-    public UserDetailsService userDetailsService() {
-        return new CustomUserDetailsService(userRepository);
+    public UserDetailsService userDetailsService(TokenVersionTable tokenVersionTable, MeterRegistry meterRegistry) {
+        return new CustomUserDetailsService(userRepository, tokenVersionTable, meterRegistry);
     }
 
     /**
      * Configures the authentication manager with:
-     * - DAO-based authentication (for username/password login).
+     * - DAO-based authentication (for username/password login), with loaded users cached.
      * - JWT-based authentication.
      */
     @Bean
-    public AuthenticationManager authenticationManager(UserDetailsService userDetailsService, PasswordEncoder passwordEncoder) {
+    public AuthenticationManager authenticationManager(UserDetailsService userDetailsService, PasswordEncoder passwordEncoder,
+                                                       UserCache userCache) {
+
+        CachingUserDetailsService cachingUserDetailsService = new CachingUserDetailsService(userDetailsService);
+        cachingUserDetailsService.setUserCache(userCache);
 
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
-        authProvider.setUserDetailsService(userDetailsService);
+        authProvider.setUserDetailsService(cachingUserDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder);
 
         return new ProviderManager(List.of(authProvider, jwtAuthenticationProvider));
@@ -121,7 +161,7 @@ public class TestSecurityConfig{
      */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return NoOpPasswordEncoder.getInstance();
+        return new CountingPasswordEncoder();
     }
 
 
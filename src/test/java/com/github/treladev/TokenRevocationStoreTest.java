@@ -0,0 +1,96 @@
+package com.github.treladev;
+
+import com.github.treladev.model.RevokedToken;
+import com.github.treladev.security.jwt.TokenRevocationLoader;
+import com.github.treladev.security.jwt.TokenRevocationStore;
+import com.github.treladev.service.TokenRevocationService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenRevocationStoreTest {
+
+    @Test
+    @DisplayName("Should reject a revoked token and accept other tokens")
+    void revokeToken_shouldOnlyRevokeThatToken() {
+        TokenRevocationStore store = new TokenRevocationStore(100);
+
+        store.revokeToken("token-1", Instant.now().plusSeconds(600));
+
+        assertTrue(store.isRevoked("token-1"));
+        assertFalse(store.isRevoked("token-2"));
+    }
+
+    @Test
+    @DisplayName("Should never miss a revoked token, even beyond the expected number of revocations")
+    void isRevoked_shouldHaveNoFalseNegatives() {
+        TokenRevocationStore store = new TokenRevocationStore(100);
+        Instant expiresAt = Instant.now().plusSeconds(600);
+        List<String> tokenIds = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String tokenId = UUID.randomUUID().toString();
+            tokenIds.add(tokenId);
+            store.revokeToken(tokenId, expiresAt);
+        }
+
+        for (String tokenId : tokenIds) {
+            assertTrue(store.isRevoked(tokenId));
+        }
+        // Bloom filter false positives are resolved by the exact lookup
+        assertFalse(store.isRevoked(UUID.randomUUID().toString()));
+    }
+
+    @Test
+    @DisplayName("Should purge revocations of expired tokens and keep the others")
+    void purgeExpired_shouldDropExpiredRevocations() {
+        TokenRevocationStore store = new TokenRevocationStore(100);
+        Instant now = Instant.now();
+        store.revokeToken("expired-token", now.minusSeconds(1));
+        store.revokeToken("valid-token", now.plusSeconds(600));
+
+        store.purgeExpired();
+
+        assertEquals(1, store.size());
+        assertFalse(store.isRevoked("expired-token"));
+        assertTrue(store.isRevoked("valid-token"));
+    }
+
+    @Test
+    @DisplayName("Should store revocations, so they are restored at the next start")
+    void load_shouldRestoreStoredRevocations() {
+        MockRevokedTokenRepository repository = new MockRevokedTokenRepository();
+        Instant now = Instant.now();
+        new TokenRevocationService(repository, new TokenRevocationStore(100))
+                .revokeToken("revoked-token", now.plusSeconds(600));
+        repository.save(new RevokedToken("expired-token", now.minusSeconds(1), now.minusSeconds(600)));
+        TokenRevocationStore restartedStore = new TokenRevocationStore(100);
+
+        int loaded = new TokenRevocationLoader(repository, restartedStore).load();
+
+        assertEquals(1, loaded);
+        assertTrue(restartedStore.isRevoked("revoked-token"));
+        assertFalse(restartedStore.isRevoked("expired-token"));
+    }
+
+    @Test
+    @DisplayName("Should pick up the revocations made by other instances when syncing")
+    void sync_shouldReadRevocationsOfOtherInstances() {
+        MockRevokedTokenRepository repository = new MockRevokedTokenRepository();
+        TokenRevocationStore store = new TokenRevocationStore(100);
+        TokenRevocationLoader loader = new TokenRevocationLoader(repository, store);
+        loader.start();
+
+        new TokenRevocationService(repository, new TokenRevocationStore(100))
+                .revokeToken("revoked-elsewhere", Instant.now().plusSeconds(600));
+        assertFalse(store.isRevoked("revoked-elsewhere"));
+        loader.sync();
+
+        assertTrue(store.isRevoked("revoked-elsewhere"));
+    }
+}
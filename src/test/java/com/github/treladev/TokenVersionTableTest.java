@@ -0,0 +1,130 @@
+package com.github.treladev;
+
+import com.github.treladev.model.User;
+import com.github.treladev.repository.UserFilter;
+import com.github.treladev.security.jwt.JwtUtil;
+import com.github.treladev.security.jwt.TokenVersionTable;
+import com.github.treladev.security.jwt.TokenVersionTableLoader;
+import com.github.treladev.security.jwt.VerifiedToken;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenVersionTableTest {
+
+    private static final String SECRET = "mySuperSecretKeyThatIsAtLeast32CharactersLong";
+
+    @Test
+    @DisplayName("Should accept every version of unchanged users and only newer versions of changed users")
+    void isCurrent_shouldRejectOlderVersionsOfChangedUsers() {
+        TokenVersionTable table = new TokenVersionTable();
+
+        table.raise(1L, 3);
+
+        assertTrue(table.isCurrent(2L, 0));
+        assertFalse(table.isCurrent(1L, 2));
+        assertTrue(table.isCurrent(1L, 3));
+        assertTrue(table.isCurrent(1L, 4));
+    }
+
+    @Test
+    @DisplayName("Should never lower a raised version and reject every version of deleted users")
+    void raise_shouldOnlyRaise() {
+        TokenVersionTable table = new TokenVersionTable();
+
+        table.raise(1L, 3);
+        table.raise(1L, 2);
+        table.delete(2L);
+
+        assertFalse(table.isCurrent(1L, 2));
+        assertFalse(table.isCurrent(2L, Integer.MAX_VALUE - 1));
+    }
+
+    @Test
+    @DisplayName("Should keep versions raised within the last token lifetime when purging")
+    void purgeExpired_shouldKeepRecentVersions() {
+        TokenVersionTable table = new TokenVersionTable();
+        table.raise(1L, 1);
+
+        table.purgeExpired();
+
+        assertEquals(1, table.size());
+        assertFalse(table.isCurrent(1L, 0));
+    }
+
+    @Test
+    @DisplayName("Should restore the versions raised within the last token lifetime at startup")
+    void load_shouldRestoreRecentlyRaisedVersions() {
+        MockUserRepository userRepository = new MockUserRepository();
+        userRepository.initTestData();
+        User recentlyRaised = userRepository.findById(3L).orElseThrow();
+        recentlyRaised.setTokenVersion(2);
+        recentlyRaised.setTokenVersionRaisedAt(Instant.now().minusSeconds(60));
+        User raisedLongAgo = userRepository.findById(4L).orElseThrow();
+        raisedLongAgo.setTokenVersion(1);
+        raisedLongAgo.setTokenVersionRaisedAt(Instant.now().minus(JwtUtil.TOKEN_LIFETIME).minusSeconds(60));
+        userRepository.deleteMatching(UserFilter.byIds(List.of(2L)));
+        TokenVersionTable table = new TokenVersionTable();
+
+        int loaded = new TokenVersionTableLoader(userRepository, table).load();
+
+        assertEquals(2, loaded);
+        assertFalse(table.isCurrent(3L, 1));
+        assertTrue(table.isCurrent(3L, 2));
+        assertTrue(table.isCurrent(4L, 0));
+        assertFalse(table.isCurrent(2L, 0));
+    }
+
+    @Test
+    @DisplayName("Should pick up the versions raised and the users deleted by other instances when syncing")
+    void sync_shouldApplyChangesOfOtherInstances() {
+        MockUserRepository userRepository = new MockUserRepository();
+        userRepository.initTestData();
+        TokenVersionTable table = new TokenVersionTable();
+        TokenVersionTableLoader loader = new TokenVersionTableLoader(userRepository, table);
+        loader.start();
+
+        // Changed on another instance: only the database knows
+        userRepository.updateEnabledMatching(UserFilter.byIds(List.of(3L)), false);
+        userRepository.deleteMatching(UserFilter.byIds(List.of(4L)));
+        assertTrue(table.isCurrent(3L, 0));
+        assertTrue(table.isCurrent(4L, 0));
+        loader.sync();
+
+        assertFalse(table.isCurrent(3L, 0));
+        assertTrue(table.isCurrent(3L, 1));
+        assertFalse(table.isCurrent(4L, 0));
+        assertTrue(table.isCurrent(1L, 0));
+        assertEquals(Set.of(3L, 4L), userRepository.evictedIds());
+    }
+
+    @Test
+    @DisplayName("Tokens should carry the user ID and token version, tokens without them should be rejected")
+    void verifyToken_shouldReadUserIdAndTokenVersion() {
+        JwtUtil jwtUtil = new JwtUtil(SECRET);
+
+        VerifiedToken verifiedToken = jwtUtil.verifyToken(jwtUtil.generateToken(7L, "user1", "ROLE_USER", 2));
+
+        assertEquals(7L, verifiedToken.userId());
+        assertEquals(2, verifiedToken.tokenVersion());
+
+        String legacyToken = Jwts.builder()
+                .subject("user1")
+                .claim("roles", "ROLE_USER")
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .compact();
+        assertThrows(JwtException.class, () -> jwtUtil.verifyToken(legacyToken));
+    }
+}
@@ -0,0 +1,293 @@
+package com.github.treladev;
+
+import com.github.treladev.exception.AdminRoleAssignmentException;
+import com.github.treladev.exception.AdminUpdateForbiddenException;
+import com.github.treladev.exception.InvalidUserFilterException;
+import com.github.treladev.model.Role;
+import com.github.treladev.model.User;
+import com.github.treladev.repository.HibernateCacheConfig;
+import com.github.treladev.repository.RefreshTokenRepository;
+import com.github.treladev.repository.RoleRepository;
+import com.github.treladev.repository.UserFilter;
+import com.github.treladev.repository.UserRepository;
+import com.github.treladev.repository.UserTokenVersion;
+import com.github.treladev.security.CaffeineUserCache;
+import com.github.treladev.security.CustomUserDetails;
+import com.github.treladev.security.jwt.TokenVersionTable;
+import com.github.treladev.service.RoleRegistry;
+import com.github.treladev.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the bulk operations against the Flyway schema, every repository call commits on its own
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(HibernateCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class UserBulkOperationsTest {
+
+    private static final String PREFIX = "bulk";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private RoleRegistry roleRegistry;
+    private TokenVersionTable tokenVersionTable;
+    private CaffeineUserCache userCache;
+    private UserService userService;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        roleRegistry = new RoleRegistry(roleRepository);
+        tokenVersionTable = new TokenVersionTable();
+        userCache = new CaffeineUserCache(100, Duration.ofMinutes(5), tokenVersionTable);
+        userService = new UserService(userRepository, roleRegistry, new BCryptPasswordEncoder(4), tokenVersionTable,
+                refreshTokenRepository, userCache);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        userRepository.deleteMatching(new UserFilter(null, null, null, PREFIX, null));
+    }
+
+    @Test
+    @DisplayName("Deleting by filter should run one DELETE, evict cached users and reject their tokens")
+    void deleteUsers_shouldDeleteMatchingUsersWithOneStatement() {
+        createUsers("ROLE_GUEST", 30);
+        Long userId = createUsers("ROLE_USER", 5).get(0).getId();
+        Long cachedId = userRepository.findByUsername(PREFIX + "-role_guest-0").orElseThrow().getId();
+        userRepository.findById(cachedId);
+        statistics.clear();
+
+        int deleted = userService.deleteUsers(new UserFilter(null, role("ROLE_GUEST"), null, "BULK-", null));
+
+        assertEquals(30, deleted);
+        // One projection for the token versions, one INSERT ... SELECT recording the deleted users, one DELETE
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertTrue(userRepository.findById(cachedId).isEmpty());
+        assertFalse(tokenVersionTable.isCurrent(cachedId, 0));
+        assertTrue(tokenVersionTable.isCurrent(userId, 0));
+        assertTrue(userRepository.findIdsDeletedSince(Instant.now().minusSeconds(60)).contains(cachedId));
+        assertEquals(5, userRepository.findTokenVersionsMatching(new UserFilter(null, null, null, PREFIX, null)).size());
+    }
+
+    @Test
+    @DisplayName("Deleting by an ID list should only delete the listed users")
+    void deleteUsers_shouldDeleteListedIds() {
+        List<User> users = createUsers("ROLE_USER", 3);
+
+        int deleted = userService.deleteUsers(UserFilter.byIds(List.of(users.get(0).getId(), users.get(2).getId())));
+
+        assertEquals(2, deleted);
+        assertEquals(List.of(users.get(1).getUsername()),
+                userRepository.findTokenVersionsMatching(new UserFilter(null, null, null, PREFIX, null)).stream()
+                        .map(UserTokenVersion::username).toList());
+    }
+
+    @Test
+    @DisplayName("Disabling by filter as a moderator should skip admins and bump the token versions of the others")
+    void setUsersEnabled_shouldExcludeAdminsForModerators() {
+        List<User> users = new ArrayList<>(createUsers("ROLE_USER", 4));
+        users.addAll(createUsers("ROLE_ADMIN", 2));
+        users.forEach(user -> userCache.putUserInCache(new CustomUserDetails(user)));
+        authenticateAs("ROLE_MODERATOR");
+        statistics.clear();
+
+        int disabled = userService.setUsersEnabled(new UserFilter(null, null, true, PREFIX, null), false);
+
+        assertEquals(4, disabled);
+        assertEquals(2, statistics.getPrepareStatementCount());
+        for (User user : users) {
+            boolean isAdmin = "ROLE_ADMIN".equals(user.getRole().getName());
+            User stored = userRepository.findById(user.getId()).orElseThrow();
+            assertEquals(isAdmin, stored.isEnabled(), user.getUsername());
+            assertEquals(isAdmin ? 0 : 1, stored.getTokenVersion(), user.getUsername());
+            assertEquals(isAdmin, tokenVersionTable.isCurrent(user.getId(), 0), user.getUsername());
+            assertEquals(isAdmin, userCache.getUserFromCache(user.getUsername()) != null, user.getUsername());
+        }
+        assertEquals(0, userService.setUsersEnabled(new UserFilter(null, role("ROLE_ADMIN"), null, PREFIX, null), false));
+    }
+
+    @Test
+    @DisplayName("Disabling by filter as an admin should include admins")
+    void setUsersEnabled_shouldIncludeAdminsForAdmins() {
+        createUsers("ROLE_ADMIN", 2);
+        authenticateAs("ROLE_ADMIN");
+
+        assertEquals(2, userService.setUsersEnabled(new UserFilter(null, null, null, PREFIX, null), false));
+        assertEquals(2, userRepository.findTokenVersionsMatching(new UserFilter(null, null, false, PREFIX, null)).size());
+    }
+
+    @Test
+    @DisplayName("Reassigning a role should move every user of the old role and bump their token versions with one UPDATE")
+    void reassignRole_shouldMoveAllUsersOfRole() {
+        // No seeded user is a guest
+        Long guestId = createUsers("ROLE_GUEST", 12).get(3).getId();
+        authenticateAs("ROLE_MODERATOR");
+        statistics.clear();
+
+        int reassigned = userService.reassignRole(role("ROLE_GUEST"), role("ROLE_USER"));
+
+        assertEquals(12, reassigned);
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, userRepository.findTokenVersionsMatching(UserFilter.byRole(role("ROLE_GUEST"))).size());
+        User reassignedUser = userRepository.findById(guestId).orElseThrow();
+        assertEquals("ROLE_USER", reassignedUser.getRole().getName());
+        assertEquals(1, reassignedUser.getTokenVersion());
+        assertFalse(tokenVersionTable.isCurrent(guestId, 0));
+        assertTrue(tokenVersionTable.isCurrent(guestId, 1));
+    }
+
+    @Test
+    @DisplayName("Users that start matching between the lock and the UPDATE should have their new token versions raised")
+    void reassignRole_shouldRaiseVersionsOfUsersMatchingAfterTheLock() throws Exception {
+        Long guestId = createUsers("ROLE_GUEST", 3).get(0).getId();
+        Long moderatorId = createUsers("ROLE_MODERATOR", 1).get(0).getId();
+        // Another transaction makes the moderator a guest right after the guests are locked
+        UserRepository racingRepository = (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class}, (proxy, method, args) -> {
+                    Object result = invoke(method, args);
+                    if (method.getName().equals("lockTokenVersionsMatching")) {
+                        CompletableFuture.runAsync(() -> userRepository.updateRoleMatching(
+                                UserFilter.byIds(List.of(moderatorId)), role("ROLE_GUEST"))).get();
+                    }
+                    return result;
+                });
+        UserService racingService = new UserService(racingRepository, roleRegistry, new BCryptPasswordEncoder(4),
+                tokenVersionTable, refreshTokenRepository, userCache);
+        authenticateAs("ROLE_ADMIN");
+
+        int reassigned = new TransactionTemplate(transactionManager).execute(status ->
+                racingService.reassignRole(role("ROLE_GUEST"), role("ROLE_USER")));
+
+        assertEquals(4, reassigned);
+        // The moderator's version was incremented twice, once by each UPDATE
+        assertEquals(2, userRepository.findById(moderatorId).orElseThrow().getTokenVersion());
+        assertFalse(tokenVersionTable.isCurrent(moderatorId, 1));
+        assertTrue(tokenVersionTable.isCurrent(moderatorId, 2));
+        assertFalse(tokenVersionTable.isCurrent(guestId, 0));
+        assertTrue(tokenVersionTable.isCurrent(guestId, 1));
+    }
+
+    @Test
+    @DisplayName("Token versions should only be raised once the transaction commits, and not at all after a rollback")
+    void setUsersEnabled_shouldRaiseTokenVersionsAfterCommit() {
+        Long rolledBackId = createUsers("ROLE_GUEST", 1).get(0).getId();
+        Long committedId = createUsers("ROLE_USER", 1).get(0).getId();
+        authenticateAs("ROLE_ADMIN");
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        transaction.executeWithoutResult(status -> {
+            userService.setUsersEnabled(UserFilter.byIds(List.of(rolledBackId)), false);
+            status.setRollbackOnly();
+        });
+        transaction.executeWithoutResult(status -> {
+            userService.setUsersEnabled(UserFilter.byIds(List.of(committedId)), false);
+            assertTrue(tokenVersionTable.isCurrent(committedId, 0), "Raised before the commit");
+        });
+
+        assertTrue(tokenVersionTable.isCurrent(rolledBackId, 0));
+        assertFalse(tokenVersionTable.isCurrent(committedId, 0));
+    }
+
+    @Test
+    @DisplayName("Moderators should neither move admins nor assign the ADMIN role")
+    void reassignRole_shouldApplyAdminRulesForModerators() {
+        authenticateAs("ROLE_MODERATOR");
+
+        assertThrows(AdminUpdateForbiddenException.class,
+                () -> userService.reassignRole(role("ROLE_ADMIN"), role("ROLE_USER")));
+        assertThrows(AdminRoleAssignmentException.class,
+                () -> userService.reassignRole(role("ROLE_GUEST"), role("ROLE_ADMIN")));
+    }
+
+    @Test
+    @DisplayName("A filter without criteria should be rejected instead of matching every user")
+    void deleteUsers_shouldRejectUnrestrictedFilter() {
+        UserFilter everyone = new UserFilter(null, null, null, "", null);
+
+        assertThrows(InvalidUserFilterException.class, () -> userService.deleteUsers(everyone));
+        assertThrows(InvalidUserFilterException.class, () -> userService.setUsersEnabled(everyone, false));
+    }
+
+    @Test
+    @DisplayName("A filter with a null ID should be rejected when it is created")
+    void byIds_shouldRejectNullIds() {
+        InvalidUserFilterException exception = assertThrows(InvalidUserFilterException.class,
+                () -> UserFilter.byIds(Arrays.asList(1L, null)));
+
+        assertEquals(InvalidUserFilterException.NULL_ID, exception.getMessage());
+    }
+
+    private List<User> createUsers(String roleName, int count) {
+        Role role = role(roleName);
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(new User(PREFIX + "-" + roleName + "-" + i, "secret", role));
+        }
+        userRepository.insertAll(users);
+        return users;
+    }
+
+    private Role role(String name) {
+        return roleRegistry.findByName(name).orElseThrow();
+    }
+
+    private Object invoke(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(userRepository, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void authenticateAs(String role) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("tester", null, role));
+    }
+}
@@ -2,11 +2,19 @@ package com.github.treladev;
 
 import com.github.treladev.controller.UserController;
 import com.github.treladev.dto.UpdateUserDto;
+import com.github.treladev.dto.UserSummaryDto;
 import com.github.treladev.model.Role;
 import com.github.treladev.model.User;
-import com.github.treladev.repository.RoleRepository;
 import com.github.treladev.security.jwt.JwtUtil;
+import com.github.treladev.security.jwt.VerifiedToken;
+import com.github.treladev.security.jwt.VerifiedTokenCache;
+import com.github.treladev.service.RoleRegistry;
 import com.github.treladev.service.UserService;
+import com.github.treladev.service.UserService.UserPage;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
@@ -20,13 +28,21 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.Instant;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -46,7 +62,7 @@ public class UserControllerTest {
     private UserService userService;
 
     @MockitoBean
-    private RoleRepository roleRepository;
+    private RoleRegistry roleRegistry;
 
     @Autowired
     private MockMvc mockMvc;
@@ -54,6 +70,25 @@ public class UserControllerTest {
     @MockitoBean
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // The registry is shared by every test of the context
+    private final Map<String, Long> authenticationsBefore = new HashMap<>();
+    private double missingBefore;
+
+    @BeforeEach
+    void setUp(){
+        // The same mock token carries different roles across tests
+        verifiedTokenCache.invalidateAll();
+        for (String result : List.of("success", "invalid", "expired")) {
+            authenticationsBefore.put(result, authenticationCount(result));
+        }
+        missingBefore = meterRegistry.get("jwt.authentication.missing").counter().count();
+    }
 
 
 
@@ -61,16 +96,14 @@ public class UserControllerTest {
     @DisplayName("GET /users - Should return 200 for valid token")
     void getAllUsers_ShouldReturnStatus200ForValidToken() throws Exception {
         // Test data preparation
-        User user1 = new User("user1", "user1", new Role("ROLE_GUEST"));
-        User user2 = new User("user2", "user2", new Role("ROLE_GUEST"));
-        List<User> mockUsers = List.of(user1, user2);
+        UserSummaryDto user1 = summary(1L, "user1", "ROLE_GUEST");
+        UserSummaryDto user2 = summary(2L, "user2", "ROLE_GUEST");
+        List<UserSummaryDto> mockUsers = List.of(user1, user2);
         String mockValidJwtToken = "valid.jwt.token";
-        when(jwtUtil.validateToken(mockValidJwtToken)).thenReturn(true);
-        when(jwtUtil.extractRoles(mockValidJwtToken)).thenReturn("ROLE_ADMIN");
+        when(jwtUtil.verifyToken(mockValidJwtToken)).thenReturn(verifiedToken("ROLE_ADMIN"));
 
         // Mocking behavior
-        when(userService.getAllUsers()).thenReturn(mockUsers);
-        when(jwtUtil.validateToken(mockValidJwtToken)).thenReturn(true);
+        when(userService.getUsersPage(0L, UserService.DEFAULT_PAGE_SIZE)).thenReturn(new UserPage(mockUsers, null));
 
         // Perform GET request with valid token
         mockMvc.perform(get("/users")
@@ -78,7 +111,55 @@ public class UserControllerTest {
                 .andExpect(status().isOk())  // Expected status 200 OK
                 .andExpect(jsonPath("$").isArray())  // Check if the response is an array (list of users)
                 .andExpect(jsonPath("$[0].username").value("user1"))  // Check if the first user in the list has username "user1"
-                .andExpect(jsonPath("$[1].username").value("user2"));  // Check if the second user in the list has username "user2"
+                .andExpect(jsonPath("$[1].username").value("user2"))  // Check if the second user in the list has username "user2"
+                .andExpect(jsonPath("$[0].role").value("ROLE_GUEST"))  // Role name is flattened into the user
+                .andExpect(jsonPath("$[0].password").doesNotExist())  // Password hash is never exposed
+                .andExpect(header().doesNotExist("Link"));  // Last page has no next link
+    }
+
+    @Test
+    @DisplayName("GET /users - Should link the next page when more users follow")
+    void getAllUsers_ShouldLinkNextPageWhenMoreUsersFollow() throws Exception {
+        UserSummaryDto user3 = summary(3L, "user1", "ROLE_USER");
+        UserSummaryDto user4 = summary(4L, "user2", "ROLE_USER");
+        String mockValidJwtToken = "valid.jwt.token";
+        when(jwtUtil.verifyToken(mockValidJwtToken)).thenReturn(verifiedToken("ROLE_USER"));
+        when(userService.getUsersPage(2L, 2)).thenReturn(new UserPage(List.of(user3, user4), 4L));
+
+        mockMvc.perform(get("/users")
+                        .param("after", "2")
+                        .param("size", "2")
+                        .header("Authorization", "Bearer " + mockValidJwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(3))
+                .andExpect(header().string("Link", "<http://localhost/users?after=4&size=2>; rel=\"next\""));
+    }
+
+    @Test
+    @DisplayName("GET /users/stream - Should stream users as newline-delimited JSON")
+    void streamAllUsers_ShouldWriteOneJsonLinePerUser() throws Exception {
+        String mockValidJwtToken = "valid.jwt.token";
+        when(jwtUtil.verifyToken(mockValidJwtToken)).thenReturn(verifiedToken("ROLE_USER"));
+        doAnswer(invocation -> {
+            Consumer<UserSummaryDto> action = invocation.getArgument(0);
+            action.accept(summary(1L, "admin", "ROLE_ADMIN"));
+            action.accept(summary(2L, "moderator", "ROLE_MODERATOR"));
+            return null;
+        }).when(userService).streamAllUsers(any());
+
+        MvcResult mvcResult = mockMvc.perform(get("/users/stream")
+                        .header("Authorization", "Bearer " + mockValidJwtToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String[] lines = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"username\":\"admin\""));
+        assertTrue(lines[1].contains("\"username\":\"moderator\""));
     }
 
 
@@ -86,13 +167,13 @@ public class UserControllerTest {
     @DisplayName("GET /users - Should return 401 for invalid token")
     void getAllUsers_ShouldReturnStatus401ForInvalidToken() throws Exception {
         // Test data preparation
-        User user1 = new User("user1", "user1", new Role("ROLE_GUEST"));
-        User user2 = new User("user2", "user2", new Role("ROLE_GUEST"));
-        List<User> mockUsers = List.of(user1, user2);
+        UserSummaryDto user1 = summary(1L, "user1", "ROLE_GUEST");
+        UserSummaryDto user2 = summary(2L, "user2", "ROLE_GUEST");
+        List<UserSummaryDto> mockUsers = List.of(user1, user2);
         String mockInvalidJwtToken = "invalid.jwt.token";
         // Mocking behavior
-        when(userService.getAllUsers()).thenReturn(mockUsers);
-        when(jwtUtil.validateToken(mockInvalidJwtToken)).thenReturn(false);
+        when(userService.getUsersPage(0L, UserService.DEFAULT_PAGE_SIZE)).thenReturn(new UserPage(mockUsers, null));
+        when(jwtUtil.verifyToken(mockInvalidJwtToken)).thenThrow(new MalformedJwtException("Invalid JWT"));
         // Perform GET request with invalid token
         mockMvc.perform(get("/users")
                         .header("Authorization", "Bearer " + mockInvalidJwtToken)
@@ -112,8 +193,8 @@ public class UserControllerTest {
         String mockValidJwtToken = "valid.jwt.token";
 
         // Mocking behavior
-        when(jwtUtil.validateToken(mockValidJwtToken)).thenReturn(true);
-        when(roleRepository.findByName("ROLE_USER")).thenReturn(Optional.of(mockRole));
+        when(jwtUtil.verifyToken(mockValidJwtToken)).thenReturn(verifiedToken("ROLE_MODERATOR"));
+        when(roleRegistry.findByName("ROLE_USER")).thenReturn(Optional.of(mockRole));
         User updatedUser = new User("updatedUsername", "updatedPassword", mockRole);
         when(userService.updateUser(eq(1L), any(User.class))).thenReturn(updatedUser);
 
@@ -140,7 +221,7 @@ public class UserControllerTest {
         String mockInvalidJwtToken = "invalid.jwt.token";
 
         // Mocking behavior
-        when(jwtUtil.validateToken(mockInvalidJwtToken)).thenReturn(false);
+        when(jwtUtil.verifyToken(mockInvalidJwtToken)).thenThrow(new MalformedJwtException("Invalid JWT"));
 
         // Perform PUT request with invalid token
         mockMvc.perform(put("/users/1")
@@ -167,11 +248,9 @@ public class UserControllerTest {
     void deleteUserById_ShouldDeleteUserAndReturnSuccessMessageForValidToken() throws Exception {
         // Test data
         String mockValidJwtToken = "valid.jwt.token";
-        when(jwtUtil.validateToken(mockValidJwtToken)).thenReturn(true);
-        when(jwtUtil.extractRoles(mockValidJwtToken)).thenReturn("ROLE_ADMIN");
+        when(jwtUtil.verifyToken(mockValidJwtToken)).thenReturn(verifiedToken("ROLE_ADMIN"));
 
         // Mocking behavior
-        when(jwtUtil.validateToken(mockValidJwtToken)).thenReturn(true);
         doNothing().when(userService).deleteUserById(1L);
 
         // Perform DELETE request with valid token
@@ -189,7 +268,7 @@ public class UserControllerTest {
         String mockInvalidJwtToken = "invalid.jwt.token";
 
         // Mocking behavior
-        when(jwtUtil.validateToken(mockInvalidJwtToken)).thenReturn(false);
+        when(jwtUtil.verifyToken(mockInvalidJwtToken)).thenThrow(new MalformedJwtException("Invalid JWT"));
 
         // Perform DELETE request with invalid token
         mockMvc.perform(delete("/users/1")
@@ -202,4 +281,40 @@ public class UserControllerTest {
 
 
 
+
+    private static UserSummaryDto summary(Long id, String username, String role) {
+        return new UserSummaryDto(id, username, role, true, true, true, true);
+    }
+
+    @Test
+    @DisplayName("Token authentication should be timed by result, requests without a token counted")
+    void jwtFilter_ShouldRecordAuthenticationResults() throws Exception {
+        when(jwtUtil.verifyToken("valid.jwt.token")).thenReturn(verifiedToken("ROLE_ADMIN"));
+        when(jwtUtil.verifyToken("malformed.jwt.token")).thenThrow(new MalformedJwtException("Malformed"));
+        when(jwtUtil.verifyToken("expired.jwt.token")).thenThrow(new ExpiredJwtException(null, null, "Expired"));
+        when(userService.getUsersPage(0L, UserService.DEFAULT_PAGE_SIZE)).thenReturn(new UserPage(List.of(), null));
+        double verifications = meterRegistry.get("jwt.verification").timer().count();
+
+        for (String token : List.of("valid.jwt.token", "valid.jwt.token", "malformed.jwt.token", "expired.jwt.token")) {
+            mockMvc.perform(get("/users").header("Authorization", "Bearer " + token));
+        }
+        mockMvc.perform(get("/users")).andExpect(status().isForbidden());
+
+        assertEquals(2, authenticationCount("success") - authenticationsBefore.get("success"));
+        assertEquals(1, authenticationCount("invalid") - authenticationsBefore.get("invalid"));
+        assertEquals(1, authenticationCount("expired") - authenticationsBefore.get("expired"));
+        assertEquals(1, meterRegistry.get("jwt.authentication.missing").counter().count() - missingBefore);
+        // The second request with the valid token is served from the verified token cache
+        assertEquals(3, meterRegistry.get("jwt.verification").timer().count() - verifications);
+    }
+
+    private long authenticationCount(String result) {
+        return meterRegistry.get("jwt.authentication").tag("result", result).timer().count();
+    }
+
+    // Builds the claims the mocked JwtUtil reports for a valid token
+    private static VerifiedToken verifiedToken(String roles) {
+        return new VerifiedToken("test-token-id", 99L, "test-user", roles, 0, Instant.now(),
+                Instant.now().plusSeconds(600));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,198 @@
+package com.github.treladev;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.treladev.dto.UserImportReport;
+import com.github.treladev.dto.UserImportReport.RowError;
+import com.github.treladev.exception.PasswordHashingUnavailableException;
+import com.github.treladev.model.User;
+import com.github.treladev.repository.HibernateCacheConfig;
+import com.github.treladev.repository.RoleRepository;
+import com.github.treladev.repository.UserRepository;
+import com.github.treladev.service.RoleRegistry;
+import com.github.treladev.service.UserImportService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Imports into the Flyway schema, committing every chunk like the real endpoint does
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(HibernateCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class UserImportServiceTest {
+
+    private static final int CHUNK_SIZE = 100;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+
+    private UserImportService userImportService;
+
+    @BeforeEach
+    void setUp() {
+        userImportService = new UserImportService(userRepository, new RoleRegistry(roleRepository), passwordEncoder,
+                new ObjectMapper(), CHUNK_SIZE, 4, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        userImportService.destroy();
+        userRepository.deleteAll(userRepository.findAll().stream()
+                .filter(user -> user.getUsername().startsWith("imported"))
+                .toList());
+    }
+
+    @Test
+    @DisplayName("Should import valid CSV rows in batches and report every rejected row with its line number")
+    void importCsv_shouldImportValidRowsAndReportRejectedOnes() throws Exception {
+        StringBuilder csv = new StringBuilder("username,password,role\n");
+        for (int i = 0; i < 250; i++) {
+            csv.append("imported").append(i).append(",secret").append(i).append('\n');
+        }
+        csv.append("admin,secret\n")                          // line 252: taken by a seeded user
+                .append("Imported7,secret\n")                 // line 253: repeats line 9, ignoring case
+                .append("importedx,\n")                       // line 254: no password
+                .append("importedy,secret,ROLE_UNKNOWN\n")    // line 255: unknown role
+                .append("\"imported,quoted\",\"se\"\"cret\",ROLE_MODERATOR\n")
+                .append("importedz\n");                       // line 257: one field only
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        UserImportReport report = userImportService.importCsv(body(csv.toString()));
+
+        assertEquals(251, report.imported());
+        assertEquals(5, report.rejected());
+        assertEquals(List.of(
+                new RowError(252, "admin", "Username 'admin' is already in use."),
+                new RowError(253, "imported7", "Duplicate username in this import."),
+                new RowError(254, "importedx", "Password is missing."),
+                new RowError(255, "importedy", "No such role: ROLE_UNKNOWN"),
+                new RowError(257, null, "Expected 2 or 3 fields but found 1.")), report.errors());
+
+        User quoted = userRepository.findByUsername("imported,quoted").orElseThrow();
+        assertTrue(passwordEncoder.matches("se\"cret", quoted.getPassword()));
+        assertEquals("ROLE_MODERATOR", quoted.getRole().getName());
+        assertEquals("ROLE_USER", userRepository.findByUsername("imported0").orElseThrow().getRole().getName());
+        // Per chunk of 100 rows: one lookup, two ID blocks and two insert batches of 50
+        assertTrue(statistics.getPrepareStatementCount() <= 20,
+                "Expected batched inserts, but " + statistics.getPrepareStatementCount() + " statements were prepared");
+    }
+
+    @Test
+    @DisplayName("Should import NDJSON lines and report malformed ones")
+    void importNdjson_shouldReportMalformedLines() throws Exception {
+        String ndjson = """
+                {"username":"imported1","password":"secret","role":"ROLE_GUEST"}
+                {"username":"imported2",
+
+                {"username":"imported3","password":"secret"}
+                """;
+
+        UserImportReport report = userImportService.importNdjson(body(ndjson));
+
+        assertEquals(2, report.imported());
+        assertEquals(1, report.rejected());
+        assertEquals(2, report.errors().get(0).line());
+        assertTrue(report.errors().get(0).error().startsWith("Invalid JSON"));
+        assertEquals("ROLE_GUEST", userRepository.findByUsername("imported1").orElseThrow().getRole().getName());
+        assertTrue(userRepository.findByUsername("imported3").isPresent());
+    }
+
+    @Test
+    @DisplayName("Should wait for hashing capacity instead of rejecting rows while the encoder is saturated")
+    void importCsv_shouldRetryWhileHashingIsSaturated() throws Exception {
+        AtomicInteger rejections = new AtomicInteger(3);
+        UserImportService importService = new UserImportService(userRepository, new RoleRegistry(roleRepository),
+                sheddingEncoder(() -> rejections.getAndDecrement() > 0), new ObjectMapper(), CHUNK_SIZE, 1,
+                Duration.ofSeconds(10));
+        try {
+            UserImportReport report = importService.importCsv(body("imported1,secret\nimported2,secret\n"));
+
+            assertEquals(2, report.imported());
+            assertEquals(0, report.rejected());
+            assertTrue(rejections.get() < 0, "Expected the saturated encoder to be called again");
+        } finally {
+            importService.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should stop the import with 503 once hashing stays saturated, keeping the chunks already stored")
+    void importCsv_shouldStopWhenHashingStaysSaturated() {
+        // The first chunk is hashed, then the encoder stays saturated
+        AtomicInteger calls = new AtomicInteger();
+        UserImportService importService = new UserImportService(userRepository, new RoleRegistry(roleRepository),
+                sheddingEncoder(() -> calls.incrementAndGet() > CHUNK_SIZE), new ObjectMapper(), CHUNK_SIZE, 4,
+                Duration.ofMillis(100));
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < CHUNK_SIZE + 10; i++) {
+            csv.append("imported").append(i).append(",secret\n");
+        }
+        try {
+            PasswordHashingUnavailableException exception = assertThrows(PasswordHashingUnavailableException.class,
+                    () -> importService.importCsv(body(csv.toString())));
+
+            assertEquals(PasswordHashingUnavailableException.IMPORT_STOPPED, exception.getMessage());
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.problemType().status());
+            assertTrue(userRepository.findByUsername("imported0").isPresent());
+            assertFalse(userRepository.findByUsername("imported" + CHUNK_SIZE).isPresent());
+        } finally {
+            importService.destroy();
+        }
+    }
+
+    // Sheds the hash like a saturated BoundedPasswordEncoder whenever the condition holds
+    private PasswordEncoder sheddingEncoder(BooleanSupplier saturated) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                if (saturated.getAsBoolean()) {
+                    throw new PasswordHashingUnavailableException(PasswordHashingUnavailableException.CAPACITY_EXCEEDED);
+                }
+                return passwordEncoder.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return passwordEncoder.matches(rawPassword, encodedPassword);
+            }
+        };
+    }
+
+    private static InputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,119 @@
+package com.github.treladev;
+
+import com.github.treladev.exception.UsernameAlreadyInUseException;
+import com.github.treladev.model.User;
+import com.github.treladev.repository.HibernateCacheConfig;
+import com.github.treladev.repository.RefreshTokenRepository;
+import com.github.treladev.repository.RoleRepository;
+import com.github.treladev.repository.UserRepository;
+import com.github.treladev.security.jwt.TokenVersionTable;
+import com.github.treladev.service.RoleRegistry;
+import com.github.treladev.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.userdetails.cache.NullUserCache;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Registers users against the Flyway schema, where the unique username index decides who wins
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(HibernateCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class UserRegistrationTest {
+
+    private static final int CONCURRENT_REGISTRATIONS = 8;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        userService = new UserService(userRepository, new RoleRegistry(roleRepository), passwordEncoder,
+                new TokenVersionTable(), refreshTokenRepository, new NullUserCache());
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.findByUsername("newmember").ifPresent(userRepository::delete);
+        userRepository.findByUsername("racer").ifPresent(userRepository::delete);
+    }
+
+    @Test
+    @DisplayName("Should store the username in lower case with a hashed password and reject it in any case afterwards")
+    void registerUser_shouldRejectUsernameDifferingOnlyInCase() {
+        userService.registerUser("NewMember", "secret");
+
+        User registered = userRepository.findByUsername("newMember").orElseThrow();
+        assertEquals("newmember", registered.getUsername());
+        assertTrue(passwordEncoder.matches("secret", registered.getPassword()));
+
+        UsernameAlreadyInUseException exception = assertThrows(UsernameAlreadyInUseException.class,
+                () -> userService.registerUser("NEWMEMBER", "other"));
+        assertEquals("Username 'newmember' is already in use.", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Concurrent registrations of the same username should create exactly one user")
+    void registerUser_shouldLetOnlyOneConcurrentRegistrationWin() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> registrations = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_REGISTRATIONS)) {
+            for (int i = 0; i < CONCURRENT_REGISTRATIONS; i++) {
+                registrations.add(executor.submit(() -> {
+                    start.await();
+                    userService.registerUser("racer", "secret");
+                    return null;
+                }));
+            }
+            start.countDown();
+
+            int succeeded = 0;
+            int rejected = 0;
+            for (Future<?> registration : registrations) {
+                try {
+                    registration.get(10, TimeUnit.SECONDS);
+                    succeeded++;
+                } catch (ExecutionException e) {
+                    assertInstanceOf(UsernameAlreadyInUseException.class, e.getCause());
+                    rejected++;
+                }
+            }
+
+            assertEquals(1, succeeded);
+            assertEquals(CONCURRENT_REGISTRATIONS - 1, rejected);
+        }
+        assertEquals(1, userRepository.findAll().stream().filter(user -> user.getUsername().equals("racer")).count());
+    }
+}
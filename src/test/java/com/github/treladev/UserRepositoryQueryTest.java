@@ -0,0 +1,120 @@
+package com.github.treladev;
+
+import com.github.treladev.dto.UserSummaryDto;
+import com.github.treladev.model.Role;
+import com.github.treladev.model.User;
+import com.github.treladev.repository.HibernateCacheConfig;
+import com.github.treladev.repository.RoleRepository;
+import com.github.treladev.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Runs the real queries against the Flyway schema in H2 and counts the JDBC statements they issue
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(HibernateCacheConfig.class)
+public class UserRepositoryQueryTest {
+
+    // Users inserted by V3__insert_example_users.sql
+    private static final int SEEDED_USERS = 7;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 200})
+    @DisplayName("Listing a page of users should issue exactly one SQL statement regardless of the row count")
+    void findSummariesAfter_shouldIssueOneStatement(int extraUsers) {
+        insertUsers(extraUsers);
+        statistics.clear();
+
+        List<UserSummaryDto> users = userRepository.findSummariesAfter(0L, Limit.of(1000));
+
+        assertEquals(SEEDED_USERS + extraUsers, users.size());
+        assertEquals("ROLE_ADMIN", users.get(0).role());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 200})
+    @DisplayName("Streaming all users should issue exactly one SQL statement regardless of the row count")
+    void forEachUserSummary_shouldIssueOneStatement(int extraUsers) {
+        insertUsers(extraUsers);
+        statistics.clear();
+
+        List<UserSummaryDto> users = new ArrayList<>();
+        userRepository.forEachUserSummary(users::add);
+
+        assertEquals(SEEDED_USERS + extraUsers, users.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 50})
+    @DisplayName("Keyset pages should continue after the last seen ID without gaps or duplicates")
+    void findSummariesAfter_shouldPageByKeyset(int pageSize) {
+        insertUsers(120);
+        int expectedUsers = SEEDED_USERS + 120;
+
+        List<Long> ids = new ArrayList<>();
+        long afterId = 0L;
+        List<UserSummaryDto> page;
+        do {
+            page = userRepository.findSummariesAfter(afterId, Limit.of(pageSize));
+            page.forEach(user -> ids.add(user.id()));
+            afterId = page.isEmpty() ? afterId : page.get(page.size() - 1).id();
+        } while (page.size() == pageSize);
+
+        assertEquals(expectedUsers, ids.size());
+        assertEquals(expectedUsers, ids.stream().distinct().count());
+    }
+
+    // Inserts users spread over all roles and clears the persistence context, so nothing is served from memory
+    private void insertUsers(int count) {
+        List<Role> roles = List.of(
+                roleRepository.findByName("ROLE_USER").orElseThrow(),
+                roleRepository.findByName("ROLE_MODERATOR").orElseThrow(),
+                roleRepository.findByName("ROLE_GUEST").orElseThrow());
+        for (int i = 0; i < count; i++) {
+            entityManager.persist(new User("generated" + i, "password", roles.get(i % roles.size())));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,144 @@
+package com.github.treladev;
+
+import com.github.treladev.model.User;
+import com.github.treladev.repository.HibernateCacheConfig;
+import com.github.treladev.repository.RoleRepository;
+import com.github.treladev.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Every repository call runs in its own transaction, so reads cannot be served by the persistence context
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(HibernateCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class UserSecondLevelCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    @DisplayName("Loading the same user by ID twice should query the database only once")
+    void findById_shouldServeRepeatedLookupsFromCache() {
+        Long adminId = inTransaction(() -> userRepository.findByUsername("admin")).orElseThrow().getId();
+        entityManagerFactory.getCache().evictAll();
+        inTransaction(() -> userRepository.findById(adminId));
+        statistics.clear();
+
+        User admin = inTransaction(() -> userRepository.findById(adminId)).orElseThrow();
+
+        assertEquals("admin", admin.getUsername());
+        assertEquals("ROLE_ADMIN", admin.getRole().getName());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getDomainDataRegionStatistics("users").getHitCount());
+    }
+
+    @Test
+    @DisplayName("Loading the same user by username twice should query the database only once")
+    void findByUsername_shouldServeRepeatedLookupsFromCache() {
+        inTransaction(() -> userRepository.findByUsername("moderator"));
+        statistics.clear();
+
+        User moderator = inTransaction(() -> userRepository.findByUsername("moderator")).orElseThrow();
+
+        assertEquals("ROLE_MODERATOR", moderator.getRole().getName());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getNaturalIdStatistics(User.class.getName()).getCacheHitCount());
+        assertEquals(1, statistics.getDomainDataRegionStatistics("users").getHitCount());
+    }
+
+    @Test
+    @DisplayName("Should serve updated and deleted users correctly after save and deleteById")
+    void saveAndDeleteById_shouldInvalidateCachedEntries() {
+        User created = inTransaction(() -> userRepository.save(
+                new User("cached", "password", roleRepository.findByName("ROLE_USER").orElseThrow())));
+        Long id = created.getId();
+        inTransaction(() -> userRepository.findByUsername("cached"));
+
+        created.setUsername("renamed");
+        created.setEnabled(false);
+        inTransaction(() -> userRepository.save(created));
+
+        assertTrue(inTransaction(() -> userRepository.findByUsername("cached")).isEmpty());
+        User renamed = inTransaction(() -> userRepository.findByUsername("renamed")).orElseThrow();
+        assertEquals(id, renamed.getId());
+        assertFalse(renamed.isEnabled());
+        assertFalse(inTransaction(() -> userRepository.findById(id)).orElseThrow().isEnabled());
+
+        inTransaction(() -> {
+            userRepository.deleteById(id);
+            return null;
+        });
+
+        assertTrue(inTransaction(() -> userRepository.findById(id)).isEmpty());
+        assertTrue(inTransaction(() -> userRepository.findByUsername("renamed")).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should serve users changed by another instance correctly after evicting them")
+    void evictFromCache_shouldDropUsersChangedElsewhere() {
+        User created = inTransaction(() -> userRepository.save(
+                new User("elsewhere", "password", roleRepository.findByName("ROLE_USER").orElseThrow())));
+        Long id = created.getId();
+        inTransaction(() -> userRepository.findByUsername("elsewhere"));
+
+        // Another instance writes to the database, bypassing the cache of this one
+        jdbcTemplate.update("update users set username = 'moved', enabled = false where id = ?", id);
+        assertTrue(inTransaction(() -> userRepository.findByUsername("elsewhere")).orElseThrow().isEnabled());
+
+        userRepository.evictFromCache(List.of(id));
+
+        assertTrue(inTransaction(() -> userRepository.findByUsername("elsewhere")).isEmpty());
+        assertFalse(inTransaction(() -> userRepository.findByUsername("moved")).orElseThrow().isEnabled());
+        assertFalse(inTransaction(() -> userRepository.findById(id)).orElseThrow().isEnabled());
+
+        inTransaction(() -> {
+            userRepository.deleteById(id);
+            return null;
+        });
+    }
+
+    private <T> T inTransaction(Supplier<T> action) {
+        return new TransactionTemplate(transactionManager).execute(status -> action.get());
+    }
+}
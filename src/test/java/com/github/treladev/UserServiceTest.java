@@ -5,6 +5,7 @@ import com.github.treladev.controller.AuthController;
 import com.github.treladev.repository.RoleRepository;
 import com.github.treladev.repository.UserRepository;
 import com.github.treladev.security.SecurityConfig;
+import com.github.treladev.service.RoleRegistry;
 import com.github.treladev.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -42,11 +43,14 @@ public class UserServiceTest {
 
     @Autowired
     MockRoleRepository roleRepository;
+    @Autowired
+    RoleRegistry roleRegistry;
 
     @BeforeEach
     void SetUp(){
             userRepository.initTestData();
             roleRepository.initTestData();
+            roleRegistry.reload();
     }
 
     @Test
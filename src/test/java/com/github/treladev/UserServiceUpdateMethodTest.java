@@ -2,11 +2,15 @@ package com.github.treladev;
 
 
 import com.github.treladev.controller.UserController;
+import com.github.treladev.model.RefreshToken;
 import com.github.treladev.model.Role;
 import com.github.treladev.model.User;
 import com.github.treladev.repository.UserRepository;
 import com.github.treladev.security.jwt.JwtSpringSecurityToken;
 import com.github.treladev.security.jwt.JwtUtil;
+import com.github.treladev.security.jwt.VerifiedToken;
+import com.github.treladev.security.jwt.VerifiedTokenCache;
+import com.github.treladev.service.RoleRegistry;
 import com.github.treladev.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -27,14 +31,19 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -50,6 +59,9 @@ public class UserServiceUpdateMethodTest {
     @Autowired
     private MockRoleRepository roleRepository;
 
+    @Autowired
+    private RoleRegistry roleRegistry;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -62,6 +74,12 @@ public class UserServiceUpdateMethodTest {
     @MockitoBean
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private MockRefreshTokenRepository refreshTokenRepository;
+
 
     // Mock repositories are populated with the following data:
     // UserRepository:
@@ -80,6 +98,9 @@ public class UserServiceUpdateMethodTest {
     void setUp(){
         userRepository.initTestData();
         roleRepository.initTestData();
+        roleRegistry.reload();
+        // The same mock token carries different roles across tests
+        verifiedTokenCache.invalidateAll();
     }
 
     @Test
@@ -87,8 +108,7 @@ public class UserServiceUpdateMethodTest {
     void updateUser_shouldReturnOk_whenModeratorUpdatesNonAdminUser()
     throws Exception {
         String mockValidJwtToken = "valid.jwt.token";
-        when(jwtUtil.validateToken(mockValidJwtToken)).thenReturn(true);
-        when(jwtUtil.extractRoles(mockValidJwtToken)).thenReturn("ROLE_MODERATOR");
+        when(jwtUtil.verifyToken(mockValidJwtToken)).thenReturn(verifiedToken("ROLE_MODERATOR"));
         // Perform PUT request with valid token
         mockMvc.perform(put("/users/3")
                         .header("Authorization", "Bearer " + mockValidJwtToken)
@@ -106,12 +126,37 @@ public class UserServiceUpdateMethodTest {
 
 
 
+    @Test
+    @DisplayName("Should revoke the refresh tokens of the updated user, so no login made with the old password refreshes")
+    void updateUser_shouldRevokeRefreshTokensOfUpdatedUser() throws Exception {
+        RefreshToken updatedUsersToken = refreshTokenRepository.save(new RefreshToken("update-hash-3", "update-family-3",
+                userRepository.findById(3L).orElseThrow(), Instant.now().plusSeconds(600)));
+        RefreshToken otherUsersToken = refreshTokenRepository.save(new RefreshToken("update-hash-4", "update-family-4",
+                userRepository.findById(4L).orElseThrow(), Instant.now().plusSeconds(600)));
+        String mockValidJwtToken = "valid.jwt.token";
+        when(jwtUtil.verifyToken(mockValidJwtToken)).thenReturn(verifiedToken("ROLE_MODERATOR"));
+
+        mockMvc.perform(put("/users/3")
+                        .header("Authorization", "Bearer " + mockValidJwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                        {
+                            "username": "updatedUsername",
+                            "password": "updatedPassword",
+                            "role": "ROLE_USER"
+                        }
+                    """))
+                .andExpect(status().isOk());
+
+        assertTrue(updatedUsersToken.isRevoked());
+        assertFalse(otherUsersToken.isRevoked());
+    }
+
     @Test
     @DisplayName("Should deny access when a moderator tries to update an admin user")
     void updateUser_shouldDenyAccess_whenModeratorUpdatesAdminUser() throws Exception{
         String mockValidJwtToken = "valid.jwt.token";
-        when(jwtUtil.validateToken(mockValidJwtToken)).thenReturn(true);
-        when(jwtUtil.extractRoles(mockValidJwtToken)).thenReturn("ROLE_MODERATOR");
+        when(jwtUtil.verifyToken(mockValidJwtToken)).thenReturn(verifiedToken("ROLE_MODERATOR"));
         // Perform PUT request with valid token
         mockMvc.perform(put("/users/1")
                         .header("Authorization", "Bearer " + mockValidJwtToken)
@@ -124,7 +169,10 @@ public class UserServiceUpdateMethodTest {
                         }
                     """))
                 .andExpect(status().isForbidden())
-                .andExpect(MockMvcResultMatchers.content().string("Only admins can update other admins."));
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.type").value("urn:problem:admin-update-forbidden"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.status").value(403))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.detail").value("Only admins can update other admins."));
 
     }
 
@@ -133,8 +181,7 @@ public class UserServiceUpdateMethodTest {
     void updateUser_shouldReturnForbidden_whenModeratorAssignsAdminRole()
             throws Exception {
         String mockValidJwtToken = "valid.jwt.token";
-        when(jwtUtil.validateToken(mockValidJwtToken)).thenReturn(true);
-        when(jwtUtil.extractRoles(mockValidJwtToken)).thenReturn("ROLE_MODERATOR");
+        when(jwtUtil.verifyToken(mockValidJwtToken)).thenReturn(verifiedToken("ROLE_MODERATOR"));
         // Perform PUT request with valid token
         mockMvc.perform(put("/users/3")
                         .header("Authorization", "Bearer " + mockValidJwtToken)
@@ -147,7 +194,9 @@ public class UserServiceUpdateMethodTest {
                         }
                     """))
                 .andExpect(status().isForbidden())
-                .andExpect(MockMvcResultMatchers.content().string("Only admins can assign the ADMIN role."));
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.type").value("urn:problem:admin-role-assignment"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.detail").value("Only admins can assign the ADMIN role."));
 
     }
 
@@ -157,8 +206,7 @@ public class UserServiceUpdateMethodTest {
     void updateUser_shouldReturnOk_whenAdminUpdatesAnotherAdmin()
             throws Exception {
         String mockValidJwtToken = "valid.jwt.token";
-        when(jwtUtil.validateToken(mockValidJwtToken)).thenReturn(true);
-        when(jwtUtil.extractRoles(mockValidJwtToken)).thenReturn("ROLE_ADMIN");
+        when(jwtUtil.verifyToken(mockValidJwtToken)).thenReturn(verifiedToken("ROLE_ADMIN"));
         // Perform PUT request with valid token
         mockMvc.perform(put("/users/1")
                         .header("Authorization", "Bearer " + mockValidJwtToken)
@@ -179,8 +227,7 @@ public class UserServiceUpdateMethodTest {
     void updateUser_shouldReturnOk_whenAdminAssignsAdminRole()
             throws Exception {
         String mockValidJwtToken = "valid.jwt.token";
-        when(jwtUtil.validateToken(mockValidJwtToken)).thenReturn(true);
-        when(jwtUtil.extractRoles(mockValidJwtToken)).thenReturn("ROLE_ADMIN");
+        when(jwtUtil.verifyToken(mockValidJwtToken)).thenReturn(verifiedToken("ROLE_ADMIN"));
         // Perform PUT request with valid token
         mockMvc.perform(put("/users/2")
                         .header("Authorization", "Bearer " + mockValidJwtToken)
@@ -205,8 +252,7 @@ public class UserServiceUpdateMethodTest {
     void updateUser_shouldReturnForbidden_whenUserTriesToUpdateAnotherUser()
             throws Exception {
         String mockValidJwtToken = "valid.jwt.token";
-        when(jwtUtil.validateToken(mockValidJwtToken)).thenReturn(true);
-        when(jwtUtil.extractRoles(mockValidJwtToken)).thenReturn("ROLE_USER");
+        when(jwtUtil.verifyToken(mockValidJwtToken)).thenReturn(verifiedToken("ROLE_USER"));
         // Perform PUT request with valid token
         mockMvc.perform(put("/users/1")
                         .header("Authorization", "Bearer " + mockValidJwtToken)
@@ -233,4 +279,77 @@ public class UserServiceUpdateMethodTest {
 
 
 
+
+    @Test
+    @DisplayName("Should load the updated user once, for both the permission check and the update")
+    void updateUser_shouldLoadTargetUserOnce() throws Exception {
+        when(jwtUtil.verifyToken("admin.jwt.token")).thenReturn(verifiedToken("ROLE_ADMIN"));
+
+        mockMvc.perform(put("/users/3")
+                        .header("Authorization", "Bearer admin.jwt.token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                        {
+                            "username": "user1",
+                            "password": "user1",
+                            "role": "ROLE_MODERATOR"
+                        }
+                    """))
+                .andExpect(status().isOk());
+
+        assertEquals(1, userRepository.findByIdCalls());
+    }
+
+    @Test
+    @DisplayName("Should return FORBIDDEN to a regular user without looking up the target user")
+    void updateUser_shouldRejectRegularUserBeforeLoadingTarget() throws Exception {
+        when(jwtUtil.verifyToken("user.jwt.token")).thenReturn(verifiedToken("ROLE_USER"));
+
+        mockMvc.perform(put("/users/99")
+                        .header("Authorization", "Bearer user.jwt.token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                        {
+                            "username": "user1",
+                            "password": "user1",
+                            "role": "ROLE_USER"
+                        }
+                    """))
+                .andExpect(status().isForbidden());
+
+        assertEquals(0, userRepository.findByIdCalls());
+    }
+
+    @Test
+    @DisplayName("Should return UNAUTHORIZED for tokens issued to a user before the user was updated")
+    void updateUser_shouldRevokeExistingTokensOfUpdatedUser() throws Exception {
+        String adminToken = "admin.jwt.token";
+        String userToken = "user.jwt.token";
+        when(jwtUtil.verifyToken(adminToken)).thenReturn(verifiedToken("ROLE_ADMIN"));
+        when(jwtUtil.verifyToken(userToken)).thenReturn(new VerifiedToken("user-token-id", 4L, "user2", "ROLE_USER",
+                0, Instant.now().minusSeconds(60), Instant.now().plusSeconds(540)));
+
+        // Promote user2 while an earlier token of user2 is still valid
+        mockMvc.perform(put("/users/4")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                        {
+                            "username": "user2",
+                            "password": "user2",
+                            "role": "ROLE_MODERATOR"
+                        }
+                    """))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/users")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isUnauthorized());
+    }
+
+    // Builds the claims the mocked JwtUtil reports for a valid token
+    private static VerifiedToken verifiedToken(String roles) {
+        return new VerifiedToken("test-token-id", 99L, "test-user", roles, 0, Instant.now(),
+                Instant.now().plusSeconds(600));
+    }
 }
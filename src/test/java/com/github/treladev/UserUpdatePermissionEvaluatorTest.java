@@ -0,0 +1,62 @@
+package com.github.treladev;
+
+import com.github.treladev.exception.AdminRoleAssignmentException;
+import com.github.treladev.exception.AdminUpdateForbiddenException;
+import com.github.treladev.model.Role;
+import com.github.treladev.security.AuthoritySet;
+import com.github.treladev.security.RoleAuthorities;
+import com.github.treladev.security.UserUpdatePermissionEvaluator;
+import com.github.treladev.security.UserUpdatePermissionEvaluator.Decision;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.access.AccessDeniedException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserUpdatePermissionEvaluatorTest {
+
+    private static final Role ADMIN = new Role("ROLE_ADMIN");
+    private static final Role MODERATOR = new Role("ROLE_MODERATOR");
+    private static final Role USER = new Role("ROLE_USER");
+
+    @Test
+    @DisplayName("Admins should be allowed every update")
+    void decide_shouldAllowAdmins() {
+        AuthoritySet admin = RoleAuthorities.forClaim("ROLE_ADMIN");
+
+        assertEquals(Decision.ALLOW, UserUpdatePermissionEvaluator.decide(admin, ADMIN, USER));
+        assertEquals(Decision.ALLOW, UserUpdatePermissionEvaluator.decide(admin, USER, ADMIN));
+        assertEquals(Decision.ALLOW, UserUpdatePermissionEvaluator.decide(admin, null, new Role("ROLE_AUDITOR")));
+    }
+
+    @Test
+    @DisplayName("Moderators should update non-admins but neither update admins nor assign the ADMIN role")
+    void decide_shouldRestrictModerators() {
+        AuthoritySet moderator = RoleAuthorities.forClaim("ROLE_MODERATOR,ROLE_USER");
+
+        assertEquals(Decision.ALLOW, UserUpdatePermissionEvaluator.decide(moderator, USER, MODERATOR));
+        assertEquals(Decision.ALLOW, UserUpdatePermissionEvaluator.decide(moderator, new Role("ROLE_AUDITOR"), USER));
+        assertEquals(Decision.ADMIN_TARGET_FORBIDDEN, UserUpdatePermissionEvaluator.decide(moderator, ADMIN, ADMIN));
+        assertEquals(Decision.ADMIN_ASSIGNMENT_FORBIDDEN, UserUpdatePermissionEvaluator.decide(moderator, USER, ADMIN));
+    }
+
+    @Test
+    @DisplayName("Users, guests and unknown roles should be denied every update")
+    void decide_shouldDenyOtherActors() {
+        assertEquals(Decision.DENY, UserUpdatePermissionEvaluator.decide(RoleAuthorities.forClaim("ROLE_USER"), USER, USER));
+        assertEquals(Decision.DENY, UserUpdatePermissionEvaluator.decide(RoleAuthorities.forClaim("ROLE_GUEST,ROLE_AUDITOR"), USER, USER));
+        assertEquals(Decision.DENY, UserUpdatePermissionEvaluator.decide(RoleAuthorities.EMPTY, USER, USER));
+    }
+
+    @Test
+    @DisplayName("Should throw the exception that matches the broken rule")
+    void checkUpdate_shouldThrowMatchingException() {
+        AuthoritySet moderator = RoleAuthorities.forClaim("ROLE_MODERATOR");
+
+        assertThrows(AdminUpdateForbiddenException.class, () -> UserUpdatePermissionEvaluator.checkUpdate(moderator, ADMIN, USER));
+        assertThrows(AdminRoleAssignmentException.class, () -> UserUpdatePermissionEvaluator.checkUpdate(moderator, USER, ADMIN));
+        assertThrows(AccessDeniedException.class,
+                () -> UserUpdatePermissionEvaluator.checkUpdate(RoleAuthorities.forClaim("ROLE_USER"), USER, USER));
+        assertDoesNotThrow(() -> UserUpdatePermissionEvaluator.checkUpdate(moderator, USER, MODERATOR));
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.treladev;
+
+import com.github.treladev.security.RoleAuthorities;
+import com.github.treladev.security.jwt.VerifiedTokenCache;
+import com.github.treladev.security.jwt.VerifiedTokenCache.CachedToken;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VerifiedTokenCacheTest {
+
+    @Test
+    @DisplayName("Should verify a token once and serve repeated requests from the cache")
+    void get_shouldVerifyOnceAndCountHits() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100);
+        AtomicInteger verifications = new AtomicInteger();
+
+        for (int i = 0; i < 5; i++) {
+            CachedToken cachedToken = cache.get("header.payload.signature", token -> {
+                verifications.incrementAndGet();
+                return new CachedToken("token-1", 3L, "user1", RoleAuthorities.forClaim("ROLE_USER"),
+                        0, Instant.now().plusSeconds(600));
+            });
+            assertEquals("user1", cachedToken.username());
+        }
+
+        assertEquals(1, verifications.get());
+        assertEquals(4, cache.stats().hitCount());
+        assertEquals(1, cache.stats().missCount());
+    }
+
+    @Test
+    @DisplayName("Should re-verify a token once its expiration time has passed")
+    void get_shouldDropEntryWhenTokenExpires() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100);
+        AtomicInteger verifications = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            cache.get("header.payload.signature", token -> {
+                verifications.incrementAndGet();
+                return new CachedToken("token-1", 3L, "user1", RoleAuthorities.EMPTY,
+                        0, Instant.now().minusSeconds(1));
+            });
+        }
+
+        assertEquals(3, verifications.get());
+    }
+
+    @Test
+    @DisplayName("Should not cache tokens that fail verification")
+    void get_shouldNotCacheFailedVerification() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100);
+
+        assertThrows(IllegalStateException.class, () -> cache.get("bad.token", token -> {
+            throw new IllegalStateException("Invalid JWT Token");
+        }));
+
+        assertEquals(0, cache.size());
+    }
+}